@@ -0,0 +1,64 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log.benchmark;
+
+import org.nishat.util.log.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads logging to the shared {@link GlobalLogConfig#WRITER} at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ContentionBenchmark {
+    @Param({"false", "true"})
+    public boolean async;
+
+    private Writer writer;
+
+    @Setup
+    public void setUp() {
+        writer = GlobalLogConfig.WRITER;
+        GlobalLogConfig.WRITER = new NullWriter();
+        GlobalLogConfig.LOG_COLOR = false;
+        GlobalLogConfig.FORMAT = "[" + LogProperties.LEVEL + "] [" + LogProperties.TIMESTAMP + "] [" + LogProperties.INDEX + ": " + LogProperties.VALUE + "]";
+        GlobalLogConfig.ASYNC = async;
+    }
+
+    @TearDown
+    public void tearDown() {
+        Log.shutdown();
+        GlobalLogConfig.ASYNC = false;
+        GlobalLogConfig.WRITER = writer;
+    }
+
+    @Benchmark
+    public void shared() {
+        Log.e("bench", "contended");
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log.benchmark;
+
+import org.nishat.util.log.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the {@link LogEncoder}s against each other: the text template and the structured encoders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncoderBenchmark {
+    @Param({"TEXT", "JSON", "LOGFMT"})
+    public String encoder;
+
+    private final LocalLogConfig config = new LocalLogConfig();
+
+    @Setup
+    public void setUp() {
+        config.WRITER = new NullWriter();
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.LOG_COLOR = false;
+        switch (encoder) {
+            case "JSON":
+                config.ENCODER = LogEncoder.JSON;
+                break;
+            case "LOGFMT":
+                config.ENCODER = LogEncoder.LOGFMT;
+                break;
+            default:
+                config.ENCODER = LogEncoder.TEXT;
+        }
+    }
+
+    @Benchmark
+    public void message() {
+        Log.e("bench", "connection to \"db-1\" lost", config);
+    }
+
+    @Benchmark
+    public void context() {
+        LogContext.put("request", "42");
+        Log.e("bench", "request failed", config);
+        LogContext.remove("request");
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log.benchmark;
+
+import org.nishat.util.log.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of keeping events below {@link GlobalLogConfig#LOG_LEVEL} in a {@link FlightRecorder}, compared with
+ * dropping them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlightRecorderBenchmark {
+    @Param({"false", "true"})
+    public boolean recording;
+
+    private Writer writer;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        writer = GlobalLogConfig.WRITER;
+        GlobalLogConfig.WRITER = new NullWriter();
+        GlobalLogConfig.LOG_LEVEL = LogLevel.ERROR;
+        GlobalLogConfig.FLIGHT_RECORDER = recording ? FlightRecorder.perThread(256) : null;
+    }
+
+    @TearDown
+    public void tearDown() {
+        GlobalLogConfig.WRITER = writer;
+        GlobalLogConfig.LOG_LEVEL = LogLevel.INFO;
+        GlobalLogConfig.FLIGHT_RECORDER = null;
+    }
+
+    @Benchmark
+    public void debug() {
+        Log.d("bench", "debug");
+    }
+
+    @Benchmark
+    public void debugParameterized() {
+        Log.d("bench", "value {}", counter++);
+    }
+}
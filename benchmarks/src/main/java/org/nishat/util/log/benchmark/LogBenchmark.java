@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log.benchmark;
+
+import org.nishat.util.log.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded cost of the {@link Log} calls. Run with {@code -prof gc} to see allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogBenchmark {
+    private Writer writer;
+    private boolean color;
+    private final NullWriter out = new NullWriter();
+    private final LocalLogConfig local = new LocalLogConfig();
+    private final LocalLogConfig plain = new LocalLogConfig();
+    private final LocalLogConfig colored = new LocalLogConfig();
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        writer = GlobalLogConfig.WRITER;
+        color = GlobalLogConfig.LOG_COLOR;
+        GlobalLogConfig.WRITER = out;
+        GlobalLogConfig.LOG_COLOR = false;
+        GlobalLogConfig.LOG_LEVEL = LogLevel.TRACE;
+
+        local.WRITER = out;
+        local.LOG_LEVEL = LogLevel.DEBUG;
+        local.FORMAT = "[" + LogProperties.LEVEL + "] [" + LogProperties.TIMESTAMP + "] [" + LogProperties.INDEX + ": " + LogProperties.VALUE + "]";
+        plain.WRITER = out;
+        plain.LOG_COLOR = false;
+        plain.FORMAT = local.FORMAT;
+        colored.WRITER = out;
+        colored.LOG_COLOR = true;
+        colored.FORMAT = local.FORMAT;
+    }
+
+    @TearDown
+    public void tearDown() {
+        GlobalLogConfig.WRITER = writer;
+        GlobalLogConfig.LOG_COLOR = color;
+        GlobalLogConfig.LOG_LEVEL = LogLevel.INFO;
+    }
+
+    /**
+     * A level below {@link GlobalLogConfig#LOG_LEVEL}: nothing but the level check
+     */
+    @Benchmark
+    public void disabled() {
+        Log.i("bench", "disabled");
+    }
+
+    /**
+     * A disabled parameterized call, which must not format or box anything
+     */
+    @Benchmark
+    public void disabledParameterized() {
+        Log.i("bench", "value {}", counter++);
+    }
+
+    /**
+     * An enabled call with the default {@link GlobalLogConfig#FORMAT}, including the caller location
+     */
+    @Benchmark
+    public void enabledDefaultFormat() {
+        Log.e("bench", "enabled");
+    }
+
+    /**
+     * An enabled parameterized call with the default format
+     */
+    @Benchmark
+    public void enabledParameterized() {
+        Log.e("bench", "value {}", counter++);
+    }
+
+    /**
+     * An enabled call with a {@link LocalLogConfig} that overrides the writer, level and format
+     */
+    @Benchmark
+    public void localConfig() {
+        Log.e("bench", "local", local);
+    }
+
+    @Benchmark
+    public void plain() {
+        Log.e("bench", "plain", plain);
+    }
+
+    @Benchmark
+    public void colored() {
+        Log.e("bench", "colored", colored);
+    }
+
+    @Benchmark
+    public void raw() {
+        Log.raw("bench", "raw", plain);
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer ring buffer of preallocated {@link LogEvent}s, drained by a single background
+ * writer thread. Logging threads only copy the captured event into a free slot; formatting, writing and
+ * flushing happen on the writer thread in batches. A writer whose {@link FlushPolicy} asks for a flush is
+ * flushed once at the end of the batch.
+ *
+ * @implSpec Slots are claimed with a compare-and-set on a sequence counter and published through a per-slot
+ * sequence number, so no lock is taken on either side.
+ */
+final class AsyncLogQueue implements Runnable {
+    private static final int BATCH_SIZE = 256;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static volatile AsyncLogQueue instance;
+    private static volatile boolean terminated;
+    private static final List<AsyncLogQueue> SINK_QUEUES = new CopyOnWriteArrayList<>();
+
+    private final LogEvent[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AsyncOverflowPolicy overflowPolicy;
+    private final AsyncWaitPolicy waitPolicy;
+    private final LogLevel dropLevel;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean waiting;
+
+    private AsyncLogQueue(String name, int size, AsyncOverflowPolicy overflowPolicy, AsyncWaitPolicy waitPolicy, LogLevel dropLevel) {
+        int capacity = size <= 2 ? 2 : Integer.highestOneBit(size - 1) << 1;
+        this.events = new LogEvent[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new LogEvent();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.overflowPolicy = overflowPolicy == null ? AsyncOverflowPolicy.BLOCK : overflowPolicy;
+        this.waitPolicy = waitPolicy == null ? AsyncWaitPolicy.PARK : waitPolicy;
+        this.dropLevel = dropLevel == null ? LogLevel.WARNING : dropLevel;
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Get the running queue, starting it with the current {@link GlobalLogConfig} settings if needed.
+     *
+     * @return {@link AsyncLogQueue}, or null once the JVM is shutting down
+     */
+    static AsyncLogQueue get() {
+        AsyncLogQueue queue = instance;
+        if (queue != null && queue.running) return queue;
+        return start();
+    }
+
+    private static synchronized AsyncLogQueue start() {
+        if (instance != null && instance.running) return instance;
+        if (terminated) return null;
+        Log.installShutdownHook();
+        instance = newQueue("log-async-writer");
+        return instance;
+    }
+
+    /**
+     * Get the running queue of an asynchronous {@link LogSink}, starting it if needed.
+     *
+     * @param sink {@link LogSink}
+     * @return {@link AsyncLogQueue}, or null once the JVM is shutting down
+     */
+    static AsyncLogQueue get(LogSink sink) {
+        AsyncLogQueue queue = sink.queue;
+        if (queue != null && queue.running) return queue;
+        return start(sink);
+    }
+
+    private static synchronized AsyncLogQueue start(LogSink sink) {
+        if (sink.queue != null && sink.queue.running) return sink.queue;
+        if (terminated) return null;
+        Log.installShutdownHook();
+        AsyncLogQueue queue = newQueue("log-async-writer-" + (SINK_QUEUES.size() + 1));
+        SINK_QUEUES.add(queue);
+        sink.queue = queue;
+        return queue;
+    }
+
+    private static AsyncLogQueue newQueue(String name) {
+        return new AsyncLogQueue(name, GlobalLogConfig.ASYNC_BUFFER_SIZE, GlobalLogConfig.ASYNC_OVERFLOW_POLICY,
+                GlobalLogConfig.ASYNC_WAIT_POLICY, GlobalLogConfig.ASYNC_DROP_LEVEL);
+    }
+
+    /**
+     * Stop the running queue for good: no new queue is started after the JVM began to shut down.
+     */
+    static void terminate() {
+        terminated = true;
+        shutdownInstance();
+    }
+
+    /**
+     * Stop the running queue and the queues of {@link LogSink}s, if any, after every queued event has been
+     * written.
+     */
+    static synchronized void shutdownInstance() {
+        if (instance != null) instance.shutdown();
+        for (AsyncLogQueue queue : SINK_QUEUES) queue.shutdown();
+        SINK_QUEUES.clear();
+    }
+
+    /**
+     * Number of events discarded by the overflow policy.
+     *
+     * @return long
+     */
+    long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Queue a copy of the event.
+     *
+     * @param event {@link LogEvent}
+     * @return false if the queue is stopped and the caller has to write the event itself
+     */
+    boolean publish(LogEvent event) {
+        int spins = 0;
+        while (!offer(event)) {
+            if (!running) return false;
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    drop();
+                    return true;
+                case DROP_OLDEST:
+                    if (discardOldest()) drop();
+                    continue;
+                case DROP_BELOW_LEVEL:
+                    if (event.level == null || event.level.getValue() < dropLevel.getValue()) {
+                        drop();
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            LockSupport.unpark(thread);
+            if (++spins > 100) LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            else Thread.yield();
+        }
+        if (waiting) LockSupport.unpark(thread);
+        if (!running) drain();
+        return true;
+    }
+
+    private void drop() {
+        dropped.increment();
+        if (GlobalLogConfig.METRICS) LogMetrics.dropped(1);
+    }
+
+    private boolean offer(LogEvent event) {
+        long pos = head.get();
+        for (;;) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    events[index].copyFrom(event);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * Take the oldest event out of the buffer.
+     *
+     * @param event {@link LogEvent} to copy the taken event into, or null to discard it
+     * @return false if the buffer is empty
+     */
+    private boolean poll(LogEvent event) {
+        long pos = tail.get();
+        for (;;) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    LogEvent slot = events[index];
+                    if (event != null) event.copyFrom(slot);
+                    slot.clear();
+                    sequences.lazySet(index, pos + mask + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    private boolean discardOldest() {
+        return poll(null);
+    }
+
+    private boolean isEmpty() {
+        long pos = tail.get();
+        return sequences.get((int) pos & mask) != pos + 1;
+    }
+
+    /**
+     * Write every queued event on the calling thread. Used by logging threads that raced with
+     * {@link #shutdown()}.
+     */
+    private synchronized void drain() {
+        LogEvent event = new LogEvent();
+        while (poll(event)) {
+            LogOutput output = event.config.output;
+            if (Log.writeString(event, false)) output.flush();
+            event.clear();
+        }
+    }
+
+    private void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() == thread) return;
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+
+    @Override
+    public void run() {
+        LogEvent event = new LogEvent();
+        LogOutput[] due = new LogOutput[4];
+        int idle = 0;
+        for (;;) {
+            int count = 0;
+            int outputs = 0;
+            while (count < BATCH_SIZE && poll(event)) {
+                LogOutput output = event.config.output;
+                boolean flush = Log.writeString(event, false);
+                event.clear();
+                count++;
+                if (!flush) continue;
+                int i = 0;
+                while (i < outputs && due[i] != output) i++;
+                if (i == outputs) {
+                    if (outputs == due.length) {
+                        LogOutput[] grown = new LogOutput[outputs * 2];
+                        System.arraycopy(due, 0, grown, 0, outputs);
+                        due = grown;
+                    }
+                    due[outputs++] = output;
+                }
+            }
+            for (int i = 0; i < outputs; i++) {
+                due[i].flush();
+                due[i] = null;
+            }
+            if (count > 0) {
+                idle = 0;
+                continue;
+            }
+            if (!running) return;
+            idle(++idle);
+        }
+    }
+
+    private void idle(int idle) {
+        switch (waitPolicy) {
+            case BUSY_SPIN:
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            default:
+                if (idle < 100) {
+                    Thread.yield();
+                    break;
+                }
+                waiting = true;
+                if (isEmpty() && running) LockSupport.parkNanos(this, PARK_NANOS);
+                waiting = false;
+                break;
+        }
+    }
+}
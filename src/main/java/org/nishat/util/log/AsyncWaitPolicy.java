@@ -0,0 +1,44 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+/**
+ * How the asynchronous writer thread waits for new events. Configure it before the first asynchronous
+ * event as follows:
+ * <pre>
+ *     GlobalLogConfig.ASYNC_WAIT_POLICY = AsyncWaitPolicy.YIELD;
+ * </pre>
+ */
+public enum AsyncWaitPolicy {
+    /**
+     * Spin on the buffer. Lowest latency, but keeps one core busy.
+     */
+    BUSY_SPIN,
+
+    /**
+     * Spin with {@link Thread#yield()} between checks.
+     */
+    YIELD,
+
+    /**
+     * Park the writer thread until a logging thread wakes it up. Lowest CPU usage.
+     */
+    PARK
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a log written by {@link BinaryLogWriter} back into text. Run it from the command line as follows:
+ * <pre>
+ *     java -cp log.jar org.nishat.util.log.BinaryLogDecoder app.nlog "[LEVEL] [TIMESTAMP] [INDEX: VALUE]"
+ * </pre>
+ * The format is optional and defaults to {@link GlobalLogConfig#FORMAT}. Its placeholders are the names of the
+ * {@link LogProperties}, such as {@code LEVEL} or {@code VALUE}.
+ */
+public final class BinaryLogDecoder {
+    private static final Pattern PROPERTY_NAMES;
+
+    static {
+        StringBuilder names = new StringBuilder("\\b(");
+        for (LogProperties property : LogProperties.values()) {
+            if (names.length() > 3) names.append('|');
+            names.append(property.name());
+        }
+        PROPERTY_NAMES = Pattern.compile(names.append(")\\b").toString());
+    }
+
+    private static final LogLevel[] LEVELS = new LogLevel[LogLevel.values().length + 1];
+
+    static {
+        for (LogLevel level : LogLevel.values()) LEVELS[level.value] = level;
+    }
+
+    private final InputStream in;
+    private final List<String> tags = new ArrayList<>();
+    private final List<CallSite> sites = new ArrayList<>();
+    private long timestamp;
+
+    private BinaryLogDecoder(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Decode every event of a binary log and write it as text. The {@link LogProperties#TIMESTAMP} of each
+     * event is the time it was logged.
+     *
+     * @param in     {@link InputStream} of a binary log
+     * @param out    {@link Writer} to write the text to
+     * @param config {@link LocalLogConfig} whose {@link LocalLogConfig#ENCODER}, {@link LocalLogConfig#FORMAT},
+     *               {@link LocalLogConfig#LOG_COLOR} and {@link LocalLogConfig#TIMESTAMP_FORMAT} are used,
+     *               nullable to use {@link GlobalLogConfig}
+     * @return number of events decoded
+     * @throws IOException if the stream fails or is not a binary log
+     */
+    public static long decode(InputStream in, Writer out, LocalLogConfig config) throws IOException {
+        return new BinaryLogDecoder(new BufferedInputStream(in)).decode(out, ResolvedLogConfig.of(config));
+    }
+
+    private long decode(Writer out, ResolvedLogConfig config) throws IOException {
+        for (byte b : BinaryLogWriter.MAGIC) {
+            if (in.read() != b) throw new IOException("Not a binary log");
+        }
+        int version = in.read();
+        if (version != BinaryLogWriter.VERSION) throw new IOException("Unsupported binary log version " + version);
+        for (int i = 0; i < 8; i++) timestamp = timestamp << 8 | readByte();
+        LogEvent event = new LogEvent();
+        event.config = config;
+        StringBuilder text = new StringBuilder(256);
+        long events = 0;
+        int type;
+        while ((type = in.read()) >= 0) {
+            switch (type) {
+                case BinaryLogWriter.TAG:
+                    define(tags, (int) readVarint(), readString());
+                    break;
+                case BinaryLogWriter.SITE:
+                    int id = (int) readVarint();
+                    String className = readString();
+                    String fileName = readString();
+                    int line = (int) unzigzag(readVarint());
+                    define(sites, id, new CallSite(className, fileName.isEmpty() ? null : fileName, line));
+                    break;
+                case BinaryLogWriter.EVENT:
+                    int level = readByte();
+                    if (level >= LEVELS.length || level > 0 && LEVELS[level] == null) throw new IOException("Unknown level " + level);
+                    event.level = LEVELS[level];
+                    timestamp += unzigzag(readVarint());
+                    event.timestamp = timestamp;
+                    event.tag = lookup(tags, (int) readVarint());
+                    int site = (int) readVarint();
+                    event.site = site > 0 ? lookup(sites, site - 1) : null;
+                    event.value = readString();
+                    text.setLength(0);
+                    config.encoder.encode(event, text);
+                    text.append('\n');
+                    out.append(text);
+                    events++;
+                    break;
+                case BinaryLogWriter.RESET:
+                    tags.clear();
+                    sites.clear();
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + type);
+            }
+        }
+        out.flush();
+        return events;
+    }
+
+    private static <T> void define(List<T> table, int id, T value) throws IOException {
+        if (id != table.size()) throw new IOException("Unexpected definition " + id);
+        table.add(value);
+    }
+
+    private static <T> T lookup(List<T> table, int id) throws IOException {
+        if (id >= table.size()) throw new IOException("Undefined id " + id);
+        return table.get(id);
+    }
+
+    private static long unzigzag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private int readByte() throws IOException {
+        int b = in.read();
+        if (b < 0) throw new EOFException("Truncated binary log");
+        return b;
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private String readString() throws IOException {
+        long length = readVarint();
+        if (length > Integer.MAX_VALUE) throw new IOException("Malformed string length " + length);
+        byte[] bytes = new byte[(int) length];
+        int read = 0;
+        while (read < bytes.length) {
+            int count = in.read(bytes, read, bytes.length - read);
+            if (count < 0) throw new EOFException("Truncated binary log");
+            read += count;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Turn a format written with the names of {@link LogProperties}, as on the command line, into a
+     * {@link GlobalLogConfig#FORMAT} template
+     *
+     * @param names {@link String} such as {@code "[LEVEL] [INDEX: VALUE]"}
+     * @return {@link String}
+     */
+    static String format(String names) {
+        Matcher matcher = PROPERTY_NAMES.matcher(names);
+        StringBuffer format = new StringBuffer();
+        while (matcher.find()) {
+            String placeholder = LogProperties.valueOf(matcher.group(1)).toString();
+            matcher.appendReplacement(format, Matcher.quoteReplacement(placeholder));
+        }
+        return matcher.appendTail(format).toString();
+    }
+
+    /**
+     * Decode a binary log file to standard output
+     *
+     * @param args path of the binary log, optionally followed by the format to render events with
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: BinaryLogDecoder <file> [format]");
+            System.exit(2);
+        }
+        LocalLogConfig config = new LocalLogConfig();
+        config.LOG_COLOR = false;
+        if (args.length > 1) config.FORMAT = format(args[1]);
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        try (InputStream in = new FileInputStream(args[0])) {
+            decode(in, out, config);
+        } catch (IOException e) {
+            System.err.println(args[0] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
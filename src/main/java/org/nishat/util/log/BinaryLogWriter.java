@@ -0,0 +1,294 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Writes events in a compact binary format instead of text. Formatting happens later, offline, with
+ * {@link BinaryLogDecoder}. Use it as follows:
+ * <pre>
+ *     GlobalLogConfig.BINARY_WRITER = new BinaryLogWriter(new FileOutputStream("app.nlog"));
+ * </pre>
+ *
+ * <p>
+ * The stream starts with the magic bytes {@code NLOG}, a version byte and the epoch microseconds of the first
+ * event. It is followed by records, each starting with a type byte:
+ * <ul>
+ *     <li>{@value #TAG}: a tag definition, as a varint id and a string</li>
+ *     <li>{@value #SITE}: a call site definition, as a varint id, class name, file name and zigzag varint line</li>
+ *     <li>{@value #EVENT}: an event, as a level byte (0 for raw events), zigzag varint microseconds since the
+ *     previous event, varint tag id, varint call site id plus one (0 without a location) and the message, followed by the stack
+ *     trace of a logged exception</li>
+ *     <li>{@value #RESET}: every earlier definition is dropped</li>
+ * </ul>
+ * Strings are a varint byte count followed by UTF-8 bytes. Tags and call sites are defined once, right before
+ * the first event that uses them, so repeated events only carry their ids. Once {@value #MAX_DEFINITIONS}
+ * definitions exist, a reset drops them and they are defined again as they are used.
+ *
+ * @implSpec This class is thread-safe.
+ */
+public class BinaryLogWriter implements Flushable, Closeable {
+    static final byte[] MAGIC = {'N', 'L', 'O', 'G'};
+    static final int VERSION = 1;
+    static final int TAG = 1;
+    static final int SITE = 2;
+    static final int EVENT = 3;
+    static final int RESET = 4;
+    private static final int MAX_DEFINITIONS = 65536;
+    private static final int BUFFER_SIZE = 8192;
+    private static final Set<BinaryLogWriter> WRITERS = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private final OutputStream out;
+    private final Map<String, Integer> tags = new HashMap<>();
+    private final Map<CallSite, Integer> sites = new IdentityHashMap<>();
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int length;
+    private long lastTimestamp = -1;
+    private int pendingEvents;
+    private long pendingBytes;
+    private ScheduledFuture<?> intervalFlush;
+
+    /**
+     * Start a binary log on a stream
+     *
+     * @param out {@link OutputStream}
+     */
+    public BinaryLogWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Encode an event
+     *
+     * @param event  {@link LogEvent}
+     * @param policy {@link FlushPolicy}
+     * @throws IOException if the stream fails
+     */
+    synchronized void write(LogEvent event, FlushPolicy policy) throws IOException {
+        int start = length;
+        if (lastTimestamp < 0) {
+            ensure(MAGIC.length + 1 + 8);
+            for (byte b : MAGIC) buffer[length++] = b;
+            buffer[length++] = VERSION;
+            for (int shift = 56; shift >= 0; shift -= 8) buffer[length++] = (byte) (event.timestamp >>> shift);
+            lastTimestamp = event.timestamp;
+            synchronized (WRITERS) {
+                WRITERS.add(this);
+            }
+            Log.installShutdownHook();
+        }
+        if (policy.intervalMillis > 0 && intervalFlush == null) scheduleFlush(policy.intervalMillis);
+        if (tags.size() + sites.size() >= MAX_DEFINITIONS) {
+            tags.clear();
+            sites.clear();
+            putByte(RESET);
+        }
+        int tag = tagId(event.tag);
+        int site = event.site != null ? siteId(canonical(event)) + 1 : 0;
+        putByte(EVENT);
+        putByte(event.level != null ? event.level.value : 0);
+        putVarint(zigzag(event.timestamp - lastTimestamp));
+        lastTimestamp = event.timestamp;
+        putVarint(tag);
+        putVarint(site);
+        if (event.pattern != null || event.thrown != null) {
+            LogBuffer text = LogBuffer.acquire();
+            try {
+                event.appendValue(text.text);
+                if (event.thrown != null) event.config.stackTraceFormat.append(text.text.append('\n'), event.thrown);
+                putString(text.text);
+            } finally {
+                text.release();
+            }
+        } else {
+            putString(event.value);
+        }
+        pendingEvents++;
+        pendingBytes += length - start;
+        if (length > BUFFER_SIZE) drain();
+        if (policy.isDue(pendingEvents, pendingBytes, event.level)) flush();
+    }
+
+    private int tagId(String tag) {
+        Integer id = tags.get(tag);
+        if (id != null) return id;
+        id = tags.size();
+        tags.put(tag, id);
+        putByte(TAG);
+        putVarint(id);
+        putString(tag);
+        return id;
+    }
+
+    /**
+     * The interned instance of the call site of an event. The locator may hand out a new {@link CallSite} for
+     * every call once its cache is full, while the {@link LogSite} of the event keeps the first one, so keying
+     * definitions on it defines each location once.
+     */
+    private static CallSite canonical(LogEvent event) {
+        LogSite logSite = event.logSite;
+        return logSite != null && logSite.site != null ? logSite.site : event.site;
+    }
+
+    private int siteId(CallSite site) {
+        Integer id = sites.get(site);
+        if (id != null) return id;
+        id = sites.size();
+        sites.put(site, id);
+        putByte(SITE);
+        putVarint(id);
+        putString(site.className);
+        putString(site.fileName);
+        putVarint(zigzag(site.lineNumber));
+        return id;
+    }
+
+    private static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private void putByte(int b) {
+        ensure(1);
+        buffer[length++] = (byte) b;
+    }
+
+    private void putVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    /**
+     * Write a string as its UTF-8 byte count and bytes. Null is written as an empty string.
+     */
+    private void putString(CharSequence text) {
+        if (text == null) text = "";
+        int chars = text.length();
+        long bytes = 0;
+        for (int i = 0; i < chars; i++) {
+            char c = text.charAt(i);
+            bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+        putVarint(bytes);
+        ensure((int) bytes);
+        for (int i = 0; i < chars; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | c >> 6);
+                buffer[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // a valid pair takes 4 bytes in total, 2 per char; a lone surrogate becomes "??"
+                if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int code = Character.toCodePoint(c, text.charAt(++i));
+                    buffer[length++] = (byte) (0xF0 | code >> 18);
+                    buffer[length++] = (byte) (0x80 | code >> 12 & 0x3F);
+                    buffer[length++] = (byte) (0x80 | code >> 6 & 0x3F);
+                    buffer[length++] = (byte) (0x80 | code & 0x3F);
+                } else {
+                    buffer[length++] = '?';
+                    buffer[length++] = '?';
+                }
+            } else {
+                buffer[length++] = (byte) (0xE0 | c >> 12);
+                buffer[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (length + bytes <= buffer.length) return;
+        byte[] grown = new byte[Math.max(buffer.length * 2, length + bytes)];
+        System.arraycopy(buffer, 0, grown, 0, length);
+        buffer = grown;
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, length);
+        if (GlobalLogConfig.METRICS) LogMetrics.bytes(length);
+        length = 0;
+        if (buffer.length > BUFFER_SIZE * 4) buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Flush every binary writer that has pending events
+     */
+    static void flushAll() {
+        List<BinaryLogWriter> writers;
+        synchronized (WRITERS) {
+            writers = new ArrayList<>(WRITERS);
+        }
+        for (BinaryLogWriter writer : writers) writer.flushPending();
+    }
+
+    private synchronized void flushPending() {
+        if (pendingEvents == 0) return;
+        try {
+            flush();
+        } catch (IOException e) {
+            Log.failed(e);
+        }
+    }
+
+    private void scheduleFlush(long intervalMillis) {
+        WeakReference<BinaryLogWriter> self = new WeakReference<>(this);
+        ScheduledFuture<?>[] future = new ScheduledFuture<?>[1];
+        future[0] = LogScheduler.schedule(() -> {
+            BinaryLogWriter writer = self.get();
+            if (writer != null) writer.flushPending();
+            else future[0].cancel(false);
+        }, intervalMillis);
+        intervalFlush = future[0];
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        drain();
+        out.flush();
+        if (GlobalLogConfig.METRICS) LogMetrics.flushed();
+        pendingEvents = 0;
+        pendingBytes = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
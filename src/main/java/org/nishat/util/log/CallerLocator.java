@@ -0,0 +1,68 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the {@link CallSite} of a log call: the first stack frame outside of this package.
+ *
+ * <p>
+ * This is the Java 8 implementation, which has to materialize the whole stack trace. On Java 10 and later the
+ * multi-release jar replaces it with an implementation based on {@code StackWalker} that only walks the few
+ * frames it needs.
+ */
+final class CallerLocator {
+    private static final String PACKAGE = CallerLocator.class.getName().substring(0, CallerLocator.class.getName().lastIndexOf('.') + 1);
+    private static final int MAX_CACHED = 4096;
+    private static final ConcurrentHashMap<StackTraceElement, CallSite> CACHE = new ConcurrentHashMap<>();
+
+    private CallerLocator() {
+    }
+
+    /**
+     * Locate the code that called into the logging API.
+     *
+     * @return {@link CallSite}, or null if there is no caller outside of this package
+     */
+    static CallSite locate() {
+        StackTraceElement[] st = new Throwable().getStackTrace();
+        for (StackTraceElement element : st) {
+            if (isInternal(element.getClassName())) continue;
+            CallSite site = CACHE.get(element);
+            if (site == null) {
+                site = new CallSite(element.getClassName(), element.getFileName(), element.getLineNumber());
+                if (CACHE.size() < MAX_CACHED) CACHE.putIfAbsent(element, site);
+            }
+            return site;
+        }
+        return null;
+    }
+
+    /**
+     * Check if a class belongs to the logging library itself. Classes in sub packages are user code.
+     *
+     * @param className {@link String}
+     * @return boolean
+     */
+    static boolean isInternal(String className) {
+        return className.startsWith(PACKAGE) && className.indexOf('.', PACKAGE.length()) < 0;
+    }
+}
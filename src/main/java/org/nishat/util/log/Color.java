@@ -20,8 +20,6 @@
  */
 package org.nishat.util.log;
 
-import static org.nishat.util.log.GlobalLogConfig.LOG_COLOR;
-
 enum Color {
     ANSI_BLACK("\u001B[30m"),
     ANSI_RED("\u001B[31m"),
@@ -30,13 +28,40 @@ enum Color {
     ANSI_BLUE("\u001B[34m"),
     ANSI_PURPLE("\u001B[35m"),
     ANSI_CYAN("\u001B[36m"),
-    ANSI_WHITE("\u001B[37m");
+    ANSI_WHITE("\u001B[37m"),
+    RESET("\u001B[0m");
 
     private final String code;
     Color (String code) {
         this.code = code;
     }
 
+    /**
+     * Color of a {@link LogLevel}
+     *
+     * @param level {@link LogLevel}
+     * @return {@link Color}
+     */
+    static Color of(LogLevel level) {
+        switch (level) {
+            case TRACE:
+                return ANSI_GREEN;
+            case DEBUG:
+                return ANSI_PURPLE;
+            case ALERT:
+                return ANSI_CYAN;
+            case WARNING:
+                return ANSI_YELLOW;
+            case CRITICAL:
+                return ANSI_BLUE;
+            case ERROR:
+            case FATAL:
+                return ANSI_RED;
+            default:
+                return ANSI_WHITE;
+        }
+    }
+
     @Override
     public String toString() {
         return code;
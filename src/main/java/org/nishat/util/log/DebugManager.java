@@ -18,6 +18,7 @@
  *
  */
 package org.nishat.util.log;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 
@@ -25,25 +26,50 @@ import java.io.StringWriter;
  * {@link DebugManager} is an integration of easy java logging system. It may use to display
  * different types of {@link Throwable} errors to debug programs easily.
  *
+ * <p>
+ * Everything it prints is logged as a single raw event with the tag {@value #TAG}, so it goes to the same
+ * writers, sinks and asynchronous queue as {@link Log}. Failures of the logging pipeline itself are the
+ * exception: they are printed to {@link System#err}, so a failing writer is never written to again to report
+ * its own failure.
+ *
  * @implSpec
- * This class is immutable and thread-safe.
+ * This class is thread-safe.
  */
 public class DebugManager {
-    private static DebugManager single_instance = null;
-    private boolean isActive = false;
+    /**
+     * Tag of the events logged by the debugger
+     */
+    public static final String TAG = "DebugManager";
+
+    private static final ThreadLocal<boolean[]> EMITTING = ThreadLocal.withInitial(() -> new boolean[1]);
+
+    private volatile boolean isActive = false;
+    private volatile long duplicateWindow = DEFAULT_DUPLICATE_WINDOW;
+
+    /**
+     * Default time in milliseconds during which a repeated exception is printed as one line, see
+     * {@link #setDuplicateWindow(long)}
+     */
+    public static final long DEFAULT_DUPLICATE_WINDOW = 60_000;
+
+    /**
+     * Longest window accepted by {@link #setDuplicateWindow(long)}, so it still fits in nanoseconds
+     */
+    public static final long MAX_DUPLICATE_WINDOW = Long.MAX_VALUE / 1_000_000;
 
     private DebugManager() {
     }
 
+    private static final class Holder {
+        static final DebugManager INSTANCE = new DebugManager();
+    }
+
     /**
      * General singleton constructor
      * @return {@link DebugManager}
      */
-    public static DebugManager getInstance()
-    {
-        if (single_instance == null)
-            single_instance = new DebugManager();
-        return single_instance;
+    public static DebugManager getInstance() {
+        return Holder.INSTANCE;
     }
 
     /**
@@ -68,13 +94,43 @@ public class DebugManager {
         isActive = false;
     }
 
+    /**
+     * Print the full trace of an exception only once per window. Later exceptions with the same class and top
+     * {@value TraceFingerprints#FRAMES} frames in the window are printed as a single line with their fingerprint
+     * and occurrence number, and a summary of how often they repeated follows once the window ends. Disable it
+     * as follows:
+     * <pre>
+     *     DebugManager.getInstance().setDuplicateWindow(0);
+     * </pre>
+     * Default value is {@value #DEFAULT_DUPLICATE_WINDOW}
+     *
+     * @param millis window in milliseconds, 0 to print every trace, at most {@value #MAX_DUPLICATE_WINDOW}
+     */
+    public void setDuplicateWindow(long millis) {
+        if (millis < 0 || millis > MAX_DUPLICATE_WINDOW) {
+            throw new IllegalArgumentException("millis must be between 0 and " + MAX_DUPLICATE_WINDOW + ": " + millis);
+        }
+        duplicateWindow = millis;
+    }
+
+    /**
+     * Fingerprint of an exception, the same for exceptions of the same class thrown from the same place. Use it
+     * to group reports built with {@link #catchTrace(Throwable)}.
+     *
+     * @param e {@link Throwable} error object
+     * @return eight hex digits
+     */
+    public String fingerprint(Throwable e) {
+        return TraceFingerprints.id(TraceFingerprints.of(e));
+    }
+
     /**
      * Print String if Debugger is enabled
      *
      * @param str {@link String}
      */
     public void print(String str) {
-        if (isActive) System.out.println(str);
+        if (isActive) emit(str, null, false);
     }
 
     /**
@@ -82,11 +138,7 @@ public class DebugManager {
      * @param e {@link Exception} error object
      */
     public void print(Exception e) {
-        if (isActive) {
-            System.out.println("+++++++++++++++++ Start of Debug Catch +++++++++++++++++");
-            System.out.println(catchTrace(e));
-            System.out.println("+++++++++++++++++ End of Debug Catch +++++++++++++++++");
-        }
+        print((Throwable) e);
     }
 
     /**
@@ -94,10 +146,61 @@ public class DebugManager {
      * @param e {@link Throwable} error object
      */
     public void print(Throwable e) {
-        if (isActive) {
-            System.out.println(Log.coloredStr("+++++++++++++++++ Start of Debug Catch +++++++++++++++++", LogLevel.ERROR, null));
-            System.out.println(catchTrace(e));
-            System.out.println(Log.coloredStr("+++++++++++++++++ End of Debug Catch +++++++++++++++++", LogLevel.ERROR, null));
+        if (isActive) print(e, false);
+    }
+
+    /**
+     * Print a failure of the logging pipeline to {@link System#err} if Debugger is enabled
+     *
+     * @param e {@link IOException} of a writer
+     */
+    void report(IOException e) {
+        if (isActive) print(e, true);
+    }
+
+    /**
+     * Print a summary of repeated exceptions if Debugger is enabled, to {@link System#err} if they are failures
+     * of the logging pipeline
+     *
+     * @param summary  {@link String}
+     * @param internal boolean
+     */
+    void summarize(String summary, boolean internal) {
+        if (isActive) emit(summary, null, internal);
+    }
+
+    private void print(Throwable e, boolean internal) {
+        long window = duplicateWindow;
+        String caption = "Debug Catch";
+        if (window > 0) {
+            long fingerprint = TraceFingerprints.of(e);
+            long occurrence = TraceFingerprints.record(fingerprint, window, internal);
+            caption += " " + TraceFingerprints.id(fingerprint);
+            if (occurrence > 1) {
+                emit(caption + " #" + occurrence + ": " + e, null, internal);
+                return;
+            }
+        }
+        emit(caption, e, internal);
+    }
+
+    /**
+     * Log one event, or print it to {@link System#err} for internal failures and for calls made while this
+     * thread is already logging a debugger event, such as from a writer that reports its own failures here.
+     */
+    private static void emit(String value, Throwable thrown, boolean internal) {
+        boolean[] emitting = EMITTING.get();
+        if (internal || emitting[0]) {
+            StringBuilder out = new StringBuilder(TAG).append(": ").append(value);
+            if (thrown != null) StackTraceFormat.FULL.append(out.append('\n'), thrown);
+            System.err.println(out);
+            return;
+        }
+        emitting[0] = true;
+        try {
+            Log.raw(TAG, value, thrown);
+        } finally {
+            emitting[0] = false;
         }
     }
 
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the latest events that were below the enabled level, and writes them when an event at or above a
+ * dump level is logged, right before that event. Run at a high level and still get the debug output that led
+ * to an error as follows:
+ * <pre>
+ *     GlobalLogConfig.LOG_LEVEL = LogLevel.WARNING;
+ *     GlobalLogConfig.FLIGHT_RECORDER = FlightRecorder.perThread(256);
+ * </pre>
+ * Only events logged without a {@link LocalLogConfig} are recorded. Recording fills a preallocated slot of a
+ * ring owned by the logging thread: messages are not formatted and {@link Supplier}s are not called until the
+ * events are dumped, so arguments are formatted with the state they have when the dump happens. The caller
+ * location can only be found while the event is logged, so it is captured when recording whenever
+ * {@link GlobalLogConfig#LOCATION_LEVEL} and the format ask for it; raise the location level to keep
+ * recording cheap. A dump goes to the writer, or to the {@link LogSink}s, that the
+ * triggering event goes to, and empties the dumped rings. Rings of threads that have ended are released with
+ * the thread, so their events are no longer dumped.
+ *
+ * @implSpec This class is thread-safe. Each thread records into its own ring, so recording only takes a lock
+ * that no other thread holds unless it is dumping.
+ */
+public final class FlightRecorder {
+    private final int capacity;
+    private final boolean allThreads;
+    final LogLevel dumpLevel;
+    private final ThreadLocal<Ring> ring;
+    private final Set<Ring> rings = Collections.newSetFromMap(new WeakHashMap<>());
+
+    private FlightRecorder(int capacity, boolean allThreads, LogLevel dumpLevel) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.allThreads = allThreads;
+        this.dumpLevel = dumpLevel;
+        this.ring = ThreadLocal.withInitial(this::newRing);
+    }
+
+    /**
+     * Keep the latest N events of every thread, and dump the events of the thread that logs an
+     * {@link LogLevel#ERROR} or {@link LogLevel#FATAL}
+     *
+     * @param capacity events kept per thread
+     * @return {@link FlightRecorder}
+     */
+    public static FlightRecorder perThread(int capacity) {
+        return new FlightRecorder(capacity, false, LogLevel.ERROR);
+    }
+
+    /**
+     * Keep the latest N events of every thread, and dump the events of every thread, in timestamp order, when
+     * any thread logs an {@link LogLevel#ERROR} or {@link LogLevel#FATAL}
+     *
+     * @param capacity events kept per thread
+     * @return {@link FlightRecorder}
+     */
+    public static FlightRecorder allThreads(int capacity) {
+        return new FlightRecorder(capacity, true, LogLevel.ERROR);
+    }
+
+    /**
+     * Dump at another level than {@link LogLevel#ERROR}. The returned recorder starts empty.
+     *
+     * @param level {@link LogLevel}
+     * @return {@link FlightRecorder}
+     */
+    public FlightRecorder dumpingAt(LogLevel level) {
+        return new FlightRecorder(capacity, allThreads, level);
+    }
+
+    private Ring newRing() {
+        Ring created = new Ring(capacity);
+        synchronized (rings) {
+            rings.add(created);
+        }
+        return created;
+    }
+
+    /**
+     * Check if an event triggers a dump
+     *
+     * @param level {@link LogLevel} nullable
+     * @return boolean
+     */
+    boolean dumps(LogLevel level) {
+        return level != null && level.value >= dumpLevel.value;
+    }
+
+    /**
+     * Record an event that is below the enabled level
+     *
+     * @param tag      {@link String}
+     * @param level    {@link LogLevel}
+     * @param value    message, or null if there is a supplier or a pattern
+     * @param supplier message supplier, nullable
+     * @param pattern  {@code {}} pattern, nullable
+     * @param argCount number of arguments
+     * @param arg1     first argument
+     * @param arg2     second argument
+     * @param args     every argument when there are more than two, otherwise null
+     * @param thrown   {@link Throwable} nullable
+     */
+    void record(String tag, LogLevel level, String value, Supplier<String> supplier, String pattern, int argCount,
+                Object arg1, Object arg2, Object[] args, Throwable thrown) {
+        ResolvedLogConfig resolved = ResolvedLogConfig.of(null);
+        long timestamp = resolved.clock.currentTimeMicros();
+        List<LogSink> sinks = GlobalLogConfig.SINKS;
+        boolean location = sinks != null && !sinks.isEmpty() ? Log.capturesLocation(sinks, level) : resolved.capturesLocation(level);
+        CallSite site = location ? CallerLocator.locate() : null;
+        String[] context = LogContext.entries();
+        Ring current = ring.get();
+        synchronized (current) {
+            int index = current.next;
+            LogEvent event = current.events[index];
+            if (event == null) current.events[index] = event = new LogEvent();
+            else event.clear();
+            event.level = level;
+            event.tag = tag;
+            event.value = value;
+            event.pattern = pattern;
+            event.argCount = argCount;
+            event.arg1 = arg1;
+            event.arg2 = arg2;
+            event.args = args;
+            event.thrown = thrown;
+            event.timestamp = timestamp;
+            event.thread = Thread.currentThread();
+            event.context = context;
+            event.site = site;
+            event.config = resolved;
+            current.suppliers[index] = supplier;
+            current.next = index + 1 == capacity ? 0 : index + 1;
+            if (current.size < capacity) current.size++;
+        }
+    }
+
+    /**
+     * Take the recorded events that a dump writes: those of the calling thread, or of every thread. Suppliers
+     * are called now.
+     *
+     * @return {@link List} of {@link LogEvent} in timestamp order
+     */
+    List<LogEvent> drain() {
+        List<LogEvent> events = new ArrayList<>();
+        if (!allThreads) {
+            ring.get().drainTo(events);
+            return events;
+        }
+        List<Ring> all;
+        synchronized (rings) {
+            all = new ArrayList<>(rings);
+        }
+        for (Ring other : all) other.drainTo(events);
+        events.sort((a, b) -> Long.compare(a.timestamp, b.timestamp));
+        return events;
+    }
+
+    private static final class Ring {
+        LogEvent[] events;
+        Supplier<?>[] suppliers;
+        int next;
+        int size;
+
+        Ring(int capacity) {
+            events = new LogEvent[capacity];
+            suppliers = new Supplier<?>[capacity];
+        }
+
+        /**
+         * Move the events out of this ring, oldest first, and call their suppliers. The ring is emptied before
+         * any supplier runs, so a supplier that logs records into an empty ring.
+         */
+        void drainTo(List<LogEvent> out) {
+            LogEvent[] taken;
+            Supplier<?>[] takenSuppliers;
+            int first;
+            int count;
+            synchronized (this) {
+                taken = events;
+                takenSuppliers = suppliers;
+                first = size < taken.length ? 0 : next;
+                count = size;
+                events = new LogEvent[taken.length];
+                suppliers = new Supplier<?>[taken.length];
+                next = 0;
+                size = 0;
+            }
+            for (int i = 0, index = first; i < count; i++, index = index + 1 == taken.length ? 0 : index + 1) {
+                LogEvent event = taken[index];
+                Supplier<?> supplier = takenSuppliers[index];
+                if (supplier != null) {
+                    try {
+                        event.value = String.valueOf(supplier.get());
+                    } catch (RuntimeException e) {
+                        event.value = "supplier failed: " + e;
+                    }
+                }
+                out.add(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+/**
+ * When a writer is flushed after an event is written to it. Configure it as follows:
+ * <pre>
+ *     GlobalLogConfig.FLUSH_POLICY = FlushPolicy.everyEvents(100)
+ *             .withInterval(1000)
+ *             .immediatelyAt(LogLevel.ERROR);
+ * </pre>
+ * A writer is flushed as soon as any of the configured conditions is met.
+ *
+ * @implSpec This class is immutable and thread-safe.
+ */
+public final class FlushPolicy {
+    /**
+     * Flush after every event. This is the default policy.
+     */
+    public static final FlushPolicy EVERY_EVENT = new FlushPolicy(1, 0, 0, null);
+
+    final int events;
+    final int bytes;
+    final long intervalMillis;
+    final LogLevel immediateLevel;
+
+    private FlushPolicy(int events, int bytes, long intervalMillis, LogLevel immediateLevel) {
+        this.events = events;
+        this.bytes = bytes;
+        this.intervalMillis = intervalMillis;
+        this.immediateLevel = immediateLevel;
+    }
+
+    /**
+     * Flush after every N events
+     *
+     * @param events number of events
+     * @return {@link FlushPolicy}
+     */
+    public static FlushPolicy everyEvents(int events) {
+        if (events < 1) throw new IllegalArgumentException("events must be positive: " + events);
+        return new FlushPolicy(events, 0, 0, null);
+    }
+
+    /**
+     * Flush after N bytes, counted as chars handed to the writer
+     *
+     * @param bytes number of bytes
+     * @return {@link FlushPolicy}
+     */
+    public static FlushPolicy everyBytes(int bytes) {
+        if (bytes < 1) throw new IllegalArgumentException("bytes must be positive: " + bytes);
+        return new FlushPolicy(0, bytes, 0, null);
+    }
+
+    /**
+     * Flush every T milliseconds from a background thread
+     *
+     * @param millis interval in milliseconds
+     * @return {@link FlushPolicy}
+     */
+    public static FlushPolicy interval(long millis) {
+        if (millis < 1) throw new IllegalArgumentException("millis must be positive: " + millis);
+        return new FlushPolicy(0, 0, millis, null);
+    }
+
+    /**
+     * Also flush every T milliseconds from a background thread, so buffered events do not wait for the
+     * next event or byte threshold
+     *
+     * @param millis interval in milliseconds
+     * @return {@link FlushPolicy}
+     */
+    public FlushPolicy withInterval(long millis) {
+        if (millis < 1) throw new IllegalArgumentException("millis must be positive: " + millis);
+        return new FlushPolicy(events, bytes, millis, immediateLevel);
+    }
+
+    /**
+     * Also flush immediately after an event at or above a {@link LogLevel}, so a crash right after it still
+     * leaves it in the output
+     *
+     * @param level {@link LogLevel}
+     * @return {@link FlushPolicy}
+     */
+    public FlushPolicy immediatelyAt(LogLevel level) {
+        return new FlushPolicy(events, bytes, intervalMillis, level);
+    }
+
+    /**
+     * Check if an event is flushed as soon as it is written, whatever else is pending
+     *
+     * @param level {@link LogLevel} of the event, nullable
+     * @return boolean
+     */
+    boolean isImmediate(LogLevel level) {
+        return immediateLevel != null && level != null && level.value >= immediateLevel.value;
+    }
+
+    /**
+     * Check if the pending output has to be flushed now
+     *
+     * @param pendingEvents events written since the last flush
+     * @param pendingBytes  chars written since the last flush
+     * @param level         {@link LogLevel} of the last event, nullable
+     * @return boolean
+     */
+    boolean isDue(int pendingEvents, long pendingBytes, LogLevel level) {
+        return events > 0 && pendingEvents >= events
+                || bytes > 0 && pendingBytes >= bytes
+                || isImmediate(level);
+    }
+}
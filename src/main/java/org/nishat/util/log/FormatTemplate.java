@@ -0,0 +1,203 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled form of a {@link GlobalLogConfig#FORMAT} or {@link LocalLogConfig#FORMAT} string. The format is
+ * parsed once into literal and {@link LogProperties} segments, and every event is then rendered in a single
+ * pass without regular expressions.
+ */
+final class FormatTemplate {
+    private static final int MAX_CACHED = 64;
+    private static final ConcurrentHashMap<String, FormatTemplate> CACHE = new ConcurrentHashMap<>();
+    private static volatile FormatTemplate last = new FormatTemplate("");
+
+    final String source;
+    /**
+     * Segment {@code i} is {@code literals[i]} when {@code fields[i]} is null, otherwise the field value.
+     */
+    private final char[][] literals;
+    private final LogProperties[] fields;
+    private final boolean[] uses = new boolean[LogProperties.values().length];
+
+    private FormatTemplate(String source) {
+        this.source = source;
+        List<char[]> literals = new ArrayList<>();
+        List<LogProperties> fields = new ArrayList<>();
+        LogProperties[] properties = LogProperties.values();
+        int from = 0;
+        while (from < source.length()) {
+            int next = -1;
+            LogProperties found = null;
+            for (LogProperties p : properties) {
+                int at = source.indexOf(p.toString(), from);
+                if (at >= 0 && (next < 0 || at < next)) {
+                    next = at;
+                    found = p;
+                }
+            }
+            if (found == null) {
+                next = source.length();
+            }
+            if (next > from) {
+                literals.add(source.substring(from, next).toCharArray());
+                fields.add(null);
+            }
+            if (found == null) break;
+            literals.add(null);
+            fields.add(found);
+            uses[found.ordinal()] = true;
+            from = next + found.toString().length();
+        }
+        this.literals = literals.toArray(new char[0][]);
+        this.fields = fields.toArray(new LogProperties[0]);
+    }
+
+    /**
+     * Get the compiled template of a format string. A template is only rebuilt when the format string changes.
+     *
+     * @param format {@link String}
+     * @return {@link FormatTemplate}
+     */
+    static FormatTemplate of(String format) {
+        FormatTemplate template = last;
+        if (template.source == format || template.source.equals(format)) return template;
+        template = CACHE.get(format);
+        if (template == null) {
+            if (CACHE.size() >= MAX_CACHED) CACHE.clear();
+            template = CACHE.computeIfAbsent(format, FormatTemplate::new);
+        }
+        last = template;
+        return template;
+    }
+
+    /**
+     * Check if the template contains a placeholder
+     *
+     * @param property {@link LogProperties}
+     * @return boolean
+     */
+    boolean uses(LogProperties property) {
+        return uses[property.ordinal()];
+    }
+
+    /**
+     * Check if the template shows where the event was logged from
+     *
+     * @return boolean
+     */
+    boolean usesLocation() {
+        return uses(LogProperties.PACKAGE) || uses(LogProperties.FILE) || uses(LogProperties.LINE);
+    }
+
+    /**
+     * Render an event into the buffer.
+     *
+     * @param event {@link LogEvent}
+     * @param out   {@link StringBuilder}
+     */
+    void render(LogEvent event, StringBuilder out) {
+        char[][] site = event.logSite != null ? event.logSite.fragments(this, event.config.style) : null;
+        for (int i = 0; i < fields.length; i++) {
+            LogProperties field = fields[i];
+            if (field == null) {
+                out.append(literals[i]);
+                continue;
+            }
+            if (site != null && site[i] != null && (field != LogProperties.LEVEL || event.level == null)) {
+                out.append(site[i]);
+                continue;
+            }
+            switch (field) {
+                case LEVEL:
+                    if (event.level != null) event.config.style.appendLevel(out, event.level);
+                    else event.config.style.append(out, event.tag, LogLevel.INFO);
+                    break;
+                case TIMESTAMP:
+                    event.config.timestampFormat.format(event.timestamp, out);
+                    break;
+                case PACKAGE:
+                    if (event.site != null) out.append(event.site.className);
+                    break;
+                case INDEX:
+                    out.append(event.tag);
+                    break;
+                case VALUE:
+                    event.appendValue(out);
+                    break;
+                case FILE:
+                    if (event.site != null) out.append(event.site.fileName);
+                    break;
+                case LINE:
+                    if (event.site != null) out.append(event.site.lineNumber);
+                    break;
+                case THREAD:
+                    if (event.thread != null) out.append(event.thread.getName());
+                    break;
+                case SAMPLE_RATE:
+                    if (event.sampleRate > 0) LogSampler.appendRate(out, event.sampleRate);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Render the parts of this template that only depend on where an event was logged from: the tag, the
+     * location, and the level of raw events, which shows the tag.
+     *
+     * @param site  {@link LogSite}
+     * @param style {@link LogStyle}
+     * @return text of segment {@code i} at index {@code i}, null for segments that change per event
+     */
+    char[][] renderSite(LogSite site, LogStyle style) {
+        char[][] segments = new char[fields.length][];
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            LogProperties field = fields[i];
+            if (field == null) continue;
+            out.setLength(0);
+            switch (field) {
+                case LEVEL:
+                    style.append(out, site.tag, LogLevel.INFO);
+                    break;
+                case PACKAGE:
+                    if (site.site != null) out.append(site.site.className);
+                    break;
+                case INDEX:
+                    out.append(site.tag);
+                    break;
+                case FILE:
+                    if (site.site != null) out.append(site.site.fileName);
+                    break;
+                case LINE:
+                    if (site.site != null) out.append(site.site.lineNumber);
+                    break;
+                default:
+                    continue;
+            }
+            segments[i] = out.toString().toCharArray();
+        }
+        return segments;
+    }
+}
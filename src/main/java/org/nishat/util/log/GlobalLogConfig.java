@@ -22,10 +22,21 @@ package org.nishat.util.log;
 
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.List;
 
 public class GlobalLogConfig {
     public static Writer WRITER = new PrintWriter(System.out);
     public static String FORMAT = "["+LogProperties.LEVEL+"] ["+LogProperties.TIMESTAMP+"] ["+LogProperties.PACKAGE+"] ["+LogProperties.INDEX+": "+LogProperties.VALUE+"] from ("+LogProperties.FILE+":"+LogProperties.LINE+")";
+
+    /**
+     * Shape of written events. Write JSON lines instead of {@link #FORMAT} as follows:
+     * <pre>
+     *     GlobalLogConfig.ENCODER = LogEncoder.JSON;
+     * </pre>
+     * Default value is {@link LogEncoder#TEXT}
+     */
+    public static LogEncoder ENCODER = LogEncoder.TEXT;
+
     /**
      * Minimum  {@link LogLevel} of application. Configure this at very beginning of startup as follows:
      * <pre>
@@ -53,4 +64,146 @@ public class GlobalLogConfig {
      * Set log colorful logging true or false
      */
     public static boolean LOG_COLOR = false;
+
+    /**
+     * {@link LogStyle} of colored logging. Only color a terminal, and keep redirected output plain, as follows:
+     * <pre>
+     *     GlobalLogConfig.LOG_COLOR = true;
+     *     GlobalLogConfig.LOG_STYLE = LogStyle.AUTO;
+     * </pre>
+     * Ignored unless {@link #LOG_COLOR} is true. Default value is {@link LogStyle#ANSI}
+     */
+    public static LogStyle LOG_STYLE = LogStyle.ANSI;
+
+    /**
+     * Lowest {@link LogLevel} whose caller location ({@link LogProperties#PACKAGE}, {@link LogProperties#FILE}
+     * and {@link LogProperties#LINE}) is captured. Finding the caller walks the stack, so set it to a higher
+     * level, or to null to never capture it, as follows:
+     * <pre>
+     *     GlobalLogConfig.LOCATION_LEVEL = LogLevel.WARNING;
+     * </pre>
+     * The location is never captured if the {@link #FORMAT} has none of these placeholders. Events without a
+     * location leave the placeholders empty. Default value is {@link LogLevel#INFO}
+     */
+    public static LogLevel LOCATION_LEVEL = LogLevel.INFO;
+
+    /**
+     * How {@link LogProperties#TIMESTAMP} is rendered. Default value is {@link TimestampFormat#ISO}
+     */
+    public static TimestampFormat TIMESTAMP_FORMAT = TimestampFormat.ISO;
+
+    /**
+     * Source of event timestamps. Default value is {@link LogClock#SYSTEM}
+     */
+    public static LogClock CLOCK = LogClock.SYSTEM;
+
+    /**
+     * How the stack trace of an exception logged with {@link Log#e(String, String, Throwable)} is written. Limit
+     * deep traces as follows:
+     * <pre>
+     *     GlobalLogConfig.STACK_TRACE_FORMAT = StackTraceFormat.FULL.withMaxFrames(30).folding("org.springframework.");
+     * </pre>
+     * Default value is {@link StackTraceFormat#FULL}
+     */
+    public static StackTraceFormat STACK_TRACE_FORMAT = StackTraceFormat.FULL;
+
+    /**
+     * When {@link #WRITER} is flushed. Buffer file output and still flush errors right away as follows:
+     * <pre>
+     *     GlobalLogConfig.FLUSH_POLICY = FlushPolicy.everyEvents(100).withInterval(1000).immediatelyAt(LogLevel.ERROR);
+     * </pre>
+     * Default value is {@link FlushPolicy#EVERY_EVENT}
+     */
+    public static FlushPolicy FLUSH_POLICY = FlushPolicy.EVERY_EVENT;
+
+    /**
+     * Suppress events of a tag beyond a rate, with a periodic summary of what was suppressed, as follows:
+     * <pre>
+     *     GlobalLogConfig.RATE_LIMIT = RateLimit.perSecond(100, 500);
+     * </pre>
+     * Default value is null, which never suppresses events
+     */
+    public static RateLimit RATE_LIMIT = null;
+
+    /**
+     * Outputs that every event logged without a {@link LocalLogConfig} is written to, each with its own level,
+     * format and writer, instead of {@link #WRITER}, as follows:
+     * <pre>
+     *     GlobalLogConfig.SINKS = Arrays.asList(console, jsonFile, binaryFile);
+     * </pre>
+     * See {@link LogSink}. Default value is null, which writes to {@link #WRITER}
+     */
+    public static List<LogSink> SINKS = null;
+
+    /**
+     * Keep the latest events below {@link #LOG_LEVEL} in memory, and write them right before an
+     * {@link LogLevel#ERROR} or {@link LogLevel#FATAL} as follows:
+     * <pre>
+     *     GlobalLogConfig.FLIGHT_RECORDER = FlightRecorder.perThread(256);
+     * </pre>
+     * See {@link FlightRecorder}. Default value is null, which drops events below {@link #LOG_LEVEL}
+     */
+    public static FlightRecorder FLIGHT_RECORDER = null;
+
+    /**
+     * Keep only a share of the enabled events of some levels and tags, as follows:
+     * <pre>
+     *     GlobalLogConfig.SAMPLER = LogSampler.probability(LogLevel.TRACE, "db", 0.01);
+     * </pre>
+     * See {@link LogSampler}. Default value is null, which keeps every enabled event
+     */
+    public static LogSampler SAMPLER = null;
+
+    /**
+     * Write events in binary to this writer instead of text to {@link #WRITER}, as follows:
+     * <pre>
+     *     GlobalLogConfig.BINARY_WRITER = new BinaryLogWriter(new FileOutputStream("app.nlog"));
+     * </pre>
+     * Turn the file into text later with {@link BinaryLogDecoder}. The caller location is captured whenever
+     * {@link #LOCATION_LEVEL} allows it, since the format is only chosen when decoding. Default value is null
+     */
+    public static BinaryLogWriter BINARY_WRITER = null;
+
+    /**
+     * Count events, failures and written chars, and time every log call, as follows:
+     * <pre>
+     *     GlobalLogConfig.METRICS = true;
+     *     System.out.println(LogMetrics.latency());
+     * </pre>
+     * See {@link LogMetrics}. Default value is false
+     */
+    public static boolean METRICS = false;
+
+    /**
+     * Write events from a background thread instead of the calling thread. Configure this at very beginning
+     * of startup as follows:
+     * <pre>
+     *     GlobalLogConfig.ASYNC = true;
+     * </pre>
+     * Call {@link Log#shutdown()} before exit to write every queued event. Default value is false
+     */
+    public static boolean ASYNC = false;
+
+    /**
+     * Number of events the asynchronous buffer holds, rounded up to a power of two. Read when the
+     * background thread starts. Default value is 8192
+     */
+    public static int ASYNC_BUFFER_SIZE = 8192;
+
+    /**
+     * What a logging thread does when the asynchronous buffer is full. Default value is
+     * {@link AsyncOverflowPolicy#BLOCK}
+     */
+    public static AsyncOverflowPolicy ASYNC_OVERFLOW_POLICY = AsyncOverflowPolicy.BLOCK;
+
+    /**
+     * How the background thread waits for new events. Default value is {@link AsyncWaitPolicy#PARK}
+     */
+    public static AsyncWaitPolicy ASYNC_WAIT_POLICY = AsyncWaitPolicy.PARK;
+
+    /**
+     * Lowest {@link LogLevel} that is never dropped by {@link AsyncOverflowPolicy#DROP_BELOW_LEVEL}.
+     * Default value is {@link LogLevel#WARNING}
+     */
+    public static LogLevel ASYNC_DROP_LEVEL = LogLevel.WARNING;
 }
@@ -25,6 +25,12 @@ import java.io.Writer;
 public class LocalLogConfig {
     public Writer WRITER;
     public String FORMAT;
+
+    /**
+     * Shape of written events. Default value is null, which uses {@link GlobalLogConfig#ENCODER}
+     */
+    public LogEncoder ENCODER;
+
     /**
      * Minimum  {@link LogLevel} of application. Configure this at very beginning of startup as follows:
      * <pre>
@@ -49,7 +55,58 @@ public class LocalLogConfig {
     public LogLevel LOG_LEVEL;
 
     /**
-     * Set log colorful logging true or false
+     * Set log colorful logging true or false. Default value is null, which uses {@link GlobalLogConfig#LOG_COLOR}
+     */
+    public Boolean LOG_COLOR;
+
+    /**
+     * {@link LogStyle} of colored logging. Default value is null, which uses {@link GlobalLogConfig#LOG_STYLE}
+     */
+    public LogStyle LOG_STYLE;
+
+    /**
+     * Lowest {@link LogLevel} whose caller location is captured. Default value is null, which uses
+     * {@link GlobalLogConfig#LOCATION_LEVEL}
+     */
+    public LogLevel LOCATION_LEVEL;
+
+    /**
+     * How {@link LogProperties#TIMESTAMP} is rendered. Default value is null, which uses
+     * {@link GlobalLogConfig#TIMESTAMP_FORMAT}
+     */
+    public TimestampFormat TIMESTAMP_FORMAT;
+
+    /**
+     * How the stack traces of exceptions are written. Default value is null, which uses
+     * {@link GlobalLogConfig#STACK_TRACE_FORMAT}
+     */
+    public StackTraceFormat STACK_TRACE_FORMAT;
+
+    /**
+     * When {@link #WRITER} is flushed. Default value is null, which uses {@link GlobalLogConfig#FLUSH_POLICY}
+     */
+    public FlushPolicy FLUSH_POLICY;
+
+    /**
+     * Suppress events of a tag beyond a rate. Ignored on a {@link LogSink}. Default value is null, which uses
+     * {@link GlobalLogConfig#RATE_LIMIT}
+     */
+    public RateLimit RATE_LIMIT;
+
+    /**
+     * Keep only a share of the enabled events. Ignored on a {@link LogSink}. Default value is null, which uses
+     * {@link GlobalLogConfig#SAMPLER}
+     */
+    public LogSampler SAMPLER;
+
+    /**
+     * Write events in binary to this writer instead of text. Default value is null, which uses
+     * {@link GlobalLogConfig#BINARY_WRITER}
+     */
+    public BinaryLogWriter BINARY_WRITER;
+
+    /**
+     * Settings resolved from this config and {@link GlobalLogConfig}, see {@link ResolvedLogConfig}
      */
-    public boolean LOG_COLOR;
+    volatile ResolvedLogConfig resolved;
 }
@@ -21,11 +21,10 @@ package org.nishat.util.log;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.lang.reflect.Field;
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * {@link Log} is an integration of easy java logging system. It may use to display
@@ -34,45 +33,8 @@ import java.util.Objects;
  * @implSpec This class is immutable and thread-safe.
  */
 public final class Log {
-    private static LocalLogConfig config;
-
-    /**
-     * Color string according to {@link LogLevel}
-     *
-     * @param str   {@link String}
-     * @param level {@link LogLevel}
-     * @return {@link String}
-     */
-    static String coloredStr(String str, LogLevel level, LocalLogConfig config) {
-        if (!getConfig(boolean.class, "LOG_COLOR" , config)) return str;
-        String ANSI_RESET = "\u001B[0m";
-        switch (level) {
-            case INFO: {
-                return Color.ANSI_WHITE + str + ANSI_RESET;
-            }
-            case TRACE: {
-                return Color.ANSI_GREEN + str + ANSI_RESET;
-            }
-            case DEBUG: {
-                return Color.ANSI_PURPLE + str + ANSI_RESET;
-            }
-            case ALERT: {
-                return Color.ANSI_CYAN + str + ANSI_RESET;
-            }
-            case WARNING: {
-                return Color.ANSI_YELLOW + str + ANSI_RESET;
-            }
-            case CRITICAL: {
-                return Color.ANSI_BLUE + str + ANSI_RESET;
-            }
-            case ERROR:
-            case FATAL: {
-                return Color.ANSI_RED + str + ANSI_RESET;
-            }
-
-        }
-        return Color.ANSI_WHITE + str + ANSI_RESET;
-    }
+    private static final ThreadLocal<LogEvent> EVENT = ThreadLocal.withInitial(LogEvent::new);
+    private static boolean hookInstalled;
 
     /**
      * Prints a {@link LogLevel#INFO} string. Use it as follows:
@@ -315,107 +277,1270 @@ public final class Log {
         write(tag, value, LogLevel.FATAL, config);
     }
 
+    /**
+     * Prints a {@link LogLevel#WARNING} string followed by the stack trace of an exception, written as
+     * {@link GlobalLogConfig#STACK_TRACE_FORMAT} says. Use it as follows:
+     * <pre>
+     *     Log.w("foo", "this is a warning text", e);
+     * </pre>
+     * The trace is only rendered if {@link LogLevel#WARNING} is enabled, straight into the output buffer.
+     *
+     * @param tag    {@link String}
+     * @param value  {@link String}
+     * @param thrown {@link Throwable} nullable
+     */
+    public static void w(String tag, String value, Throwable thrown) {
+        write(tag, value, thrown, LogLevel.WARNING, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ERROR} string followed by the stack trace of an exception, written as
+     * {@link GlobalLogConfig#STACK_TRACE_FORMAT} says. Use it as follows:
+     * <pre>
+     *     Log.e("foo", "this is an error text", e);
+     * </pre>
+     * The trace is only rendered if {@link LogLevel#ERROR} is enabled, straight into the output buffer.
+     *
+     * @param tag    {@link String}
+     * @param value  {@link String}
+     * @param thrown {@link Throwable} nullable
+     */
+    public static void e(String tag, String value, Throwable thrown) {
+        write(tag, value, thrown, LogLevel.ERROR, null);
+    }
 
     /**
-     * Prints a general string. Use it as follows:
+     * Prints a {@link LogLevel#FATAL} string followed by the stack trace of an exception, written as
+     * {@link GlobalLogConfig#STACK_TRACE_FORMAT} says. Use it as follows:
      * <pre>
-     *     Log.raw("foo", "this is a fatal text");
+     *     Log.f("foo", "this is a fatal text", e);
+     * </pre>
+     * The trace is only rendered if {@link LogLevel#FATAL} is enabled, straight into the output buffer.
+     *
+     * @param tag    {@link String}
+     * @param value  {@link String}
+     * @param thrown {@link Throwable} nullable
+     */
+    public static void f(String tag, String value, Throwable thrown) {
+        write(tag, value, thrown, LogLevel.FATAL, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#WARNING} string followed by the stack trace of an exception, written as
+     * {@link LocalLogConfig#STACK_TRACE_FORMAT} says. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.STACK_TRACE_FORMAT = StackTraceFormat.FULL.withMaxFrames(10);
+     *     Log.w("test", LogLevel.WARNING.toString(), e, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link String}
+     * @param thrown {@link Throwable} nullable
+     * @param config {@link LocalLogConfig}
+     */
+    public static void w(String tag, String value, Throwable thrown, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, thrown, LogLevel.WARNING, config);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ERROR} string followed by the stack trace of an exception, written as
+     * {@link LocalLogConfig#STACK_TRACE_FORMAT} says. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.STACK_TRACE_FORMAT = StackTraceFormat.FULL.withMaxFrames(10);
+     *     Log.e("test", LogLevel.ERROR.toString(), e, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link String}
+     * @param thrown {@link Throwable} nullable
+     * @param config {@link LocalLogConfig}
+     */
+    public static void e(String tag, String value, Throwable thrown, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, thrown, LogLevel.ERROR, config);
+    }
+
+    /**
+     * Prints a {@link LogLevel#FATAL} string followed by the stack trace of an exception, written as
+     * {@link LocalLogConfig#STACK_TRACE_FORMAT} says. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.STACK_TRACE_FORMAT = StackTraceFormat.FULL.withMaxFrames(10);
+     *     Log.f("test", LogLevel.FATAL.toString(), e, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link String}
+     * @param thrown {@link Throwable} nullable
+     * @param config {@link LocalLogConfig}
+     */
+    public static void f(String tag, String value, Throwable thrown, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, thrown, LogLevel.FATAL, config);
+    }
+
+    /**
+     * Prints a {@link LogLevel#INFO} string that is only built if {@link LogLevel#INFO} is enabled. Use it as follows:
+     * <pre>
+     *     Log.i("foo", () -> "this is an info text about " + state);
      * </pre>
      *
      * @param tag   {@link String}
-     * @param value {@link String}
+     * @param value {@link Supplier}
      */
-    public static void raw(String tag, String value) {
-        write(tag, value, null, null);
+    public static void i(String tag, Supplier<String> value) {
+        write(tag, value, LogLevel.INFO, null);
+    }
 
+    /**
+     * Prints a {@link LogLevel#TRACE} string that is only built if {@link LogLevel#TRACE} is enabled. Use it as follows:
+     * <pre>
+     *     Log.t("foo", () -> "this is a trace text about " + state);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link Supplier}
+     */
+    public static void t(String tag, Supplier<String> value) {
+        write(tag, value, LogLevel.TRACE, null);
     }
 
     /**
-     * Prints a general string. Use it as follows:
+     * Prints a {@link LogLevel#DEBUG} string that is only built if {@link LogLevel#DEBUG} is enabled. Use it as follows:
+     * <pre>
+     *     Log.d("foo", () -> "this is a debug text about " + state);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link Supplier}
+     */
+    public static void d(String tag, Supplier<String> value) {
+        write(tag, value, LogLevel.DEBUG, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ALERT} string that is only built if {@link LogLevel#ALERT} is enabled. Use it as follows:
+     * <pre>
+     *     Log.a("foo", () -> "this is an alert text about " + state);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link Supplier}
+     */
+    public static void a(String tag, Supplier<String> value) {
+        write(tag, value, LogLevel.ALERT, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#WARNING} string that is only built if {@link LogLevel#WARNING} is enabled. Use it as follows:
+     * <pre>
+     *     Log.w("foo", () -> "this is a warning text about " + state);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link Supplier}
+     */
+    public static void w(String tag, Supplier<String> value) {
+        write(tag, value, LogLevel.WARNING, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#CRITICAL} string that is only built if {@link LogLevel#CRITICAL} is enabled. Use it as follows:
+     * <pre>
+     *     Log.c("foo", () -> "this is a critical text about " + state);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link Supplier}
+     */
+    public static void c(String tag, Supplier<String> value) {
+        write(tag, value, LogLevel.CRITICAL, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ERROR} string that is only built if {@link LogLevel#ERROR} is enabled. Use it as follows:
+     * <pre>
+     *     Log.e("foo", () -> "this is an error text about " + state);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link Supplier}
+     */
+    public static void e(String tag, Supplier<String> value) {
+        write(tag, value, LogLevel.ERROR, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#FATAL} string that is only built if {@link LogLevel#FATAL} is enabled. Use it as follows:
+     * <pre>
+     *     Log.f("foo", () -> "this is a fatal text about " + state);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link Supplier}
+     */
+    public static void f(String tag, Supplier<String> value) {
+        write(tag, value, LogLevel.FATAL, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#INFO} string that is only built if {@link LogLevel#INFO} is enabled. Use it as follows:
      * <pre>
      *     LocalLogConfig config = new LocalLogConfig();
      *     config.FORMAT = LogProperties.VALUE.toString();
-     *     Log.raw("test", "raw test", config);
+     *     Log.i("test", () -> "this is an info text about " + state, config);
      * </pre>
      *
-     * @param tag   {@link String}
-     * @param value {@link String}
+     * @param tag    {@link String}
+     * @param value  {@link Supplier}
      * @param config {@link LocalLogConfig}
      */
-    public static void raw(String tag, String value, LocalLogConfig config) {
+    public static void i(String tag, Supplier<String> value, LocalLogConfig config) {
         Objects.requireNonNull(config);
-        write(tag, value, null, null);
+        write(tag, value, LogLevel.INFO, config);
+    }
 
+    /**
+     * Prints a {@link LogLevel#TRACE} string that is only built if {@link LogLevel#TRACE} is enabled. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.FORMAT = LogProperties.VALUE.toString();
+     *     Log.t("test", () -> "this is a trace text about " + state, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link Supplier}
+     * @param config {@link LocalLogConfig}
+     */
+    public static void t(String tag, Supplier<String> value, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, LogLevel.TRACE, config);
     }
 
     /**
-     * Prints a dynamic {@link LogLevel} string. Use it as follows:
+     * Prints a {@link LogLevel#DEBUG} string that is only built if {@link LogLevel#DEBUG} is enabled. Use it as follows:
      * <pre>
-     *     Log.write("foo", "this is a fatal text", LogLevel.FATAL);
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.FORMAT = LogProperties.VALUE.toString();
+     *     Log.d("test", () -> "this is a debug text about " + state, config);
      * </pre>
      *
-     * @param tag   {@link String}
-     * @param value {@link String}
-     * @param level {@link LogLevel} nullable
+     * @param tag    {@link String}
+     * @param value  {@link Supplier}
+     * @param config {@link LocalLogConfig}
      */
-    private static void write(String tag, String value, LogLevel level, LocalLogConfig config) {
-        StackTraceElement[] st = Thread.currentThread().getStackTrace();
-        if (level == null || getConfig(LogLevel.class, "LOG_LEVEL" , config).getValue() <= level.getValue())
-            for (int i = (st.length - 1); i > 0; i--) {
-                if (st[i].getClassName().equals(Log.class.getName())) {
-                    int line = st[i+1].getLineNumber();
-                    String file = st[i+1].getFileName();
-                    String in = st[i+1].getClassName();
-                    Map<LogProperties, String> values = new HashMap<>();
-                    values.put(LogProperties.TIMESTAMP, LocalDateTime.now().toString());
-                    values.put(LogProperties.PACKAGE, in);
-                    values.put(LogProperties.INDEX, tag);
-                    values.put(LogProperties.VALUE, value);
-                    values.put(LogProperties.FILE, file);
-                    values.put(LogProperties.LINE, String.valueOf(line));
-                    if (level != null) {
-                        values.put(LogProperties.LEVEL, coloredStr(level.name(), level, config));
-                    }
-                    else {
-                        values.put(LogProperties.LEVEL, coloredStr(tag, LogLevel.INFO, config));
-                    }
-                    writeString(values, config);
-                    return;
-                }
-            }
+    public static void d(String tag, Supplier<String> value, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, LogLevel.DEBUG, config);
     }
 
-    private static void writeString(Map<LogProperties, String> values, LocalLogConfig config) {
-        String out = getConfig(String.class, "FORMAT" , config);
-        for (Map.Entry<LogProperties, String> entry : values.entrySet()) {
-            LogProperties i = entry.getKey();
-            String v = entry.getValue();
-            out = out.replaceAll(i.toString(), v);
-        }
-        out = out+"\n";
-        try {
-            getConfig(Writer.class, "WRITER" , config).write(out);
-            getConfig(Writer.class, "WRITER" , config).flush();
-        } catch (IOException e) {
-            DebugManager.getInstance().print(e);
-        }
+    /**
+     * Prints a {@link LogLevel#ALERT} string that is only built if {@link LogLevel#ALERT} is enabled. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.FORMAT = LogProperties.VALUE.toString();
+     *     Log.a("test", () -> "this is an alert text about " + state, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link Supplier}
+     * @param config {@link LocalLogConfig}
+     */
+    public static void a(String tag, Supplier<String> value, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, LogLevel.ALERT, config);
     }
 
-    private static <T> T getConfig (Class<T> type, String name, LocalLogConfig config) {
-        try {
-            Field field = GlobalLogConfig.class.getDeclaredField(name);
-            if (config == null) //noinspection unchecked
-                return (T) field.get(null);
-            Field field1 = LocalLogConfig.class.getDeclaredField(name);
-
-            if (field1.get(config) != null) {
-                //noinspection unchecked
-                return (T) field1.get(config);
-            }
-            //noinspection unchecked
-            return (T) field.get(null);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new RuntimeException(e);
+    /**
+     * Prints a {@link LogLevel#WARNING} string that is only built if {@link LogLevel#WARNING} is enabled. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.FORMAT = LogProperties.VALUE.toString();
+     *     Log.w("test", () -> "this is a warning text about " + state, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link Supplier}
+     * @param config {@link LocalLogConfig}
+     */
+    public static void w(String tag, Supplier<String> value, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, LogLevel.WARNING, config);
+    }
+
+    /**
+     * Prints a {@link LogLevel#CRITICAL} string that is only built if {@link LogLevel#CRITICAL} is enabled. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.FORMAT = LogProperties.VALUE.toString();
+     *     Log.c("test", () -> "this is a critical text about " + state, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link Supplier}
+     * @param config {@link LocalLogConfig}
+     */
+    public static void c(String tag, Supplier<String> value, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, LogLevel.CRITICAL, config);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ERROR} string that is only built if {@link LogLevel#ERROR} is enabled. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.FORMAT = LogProperties.VALUE.toString();
+     *     Log.e("test", () -> "this is an error text about " + state, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link Supplier}
+     * @param config {@link LocalLogConfig}
+     */
+    public static void e(String tag, Supplier<String> value, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, LogLevel.ERROR, config);
+    }
+
+    /**
+     * Prints a {@link LogLevel#FATAL} string that is only built if {@link LogLevel#FATAL} is enabled. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.FORMAT = LogProperties.VALUE.toString();
+     *     Log.f("test", () -> "this is a fatal text about " + state, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link Supplier}
+     * @param config {@link LocalLogConfig}
+     */
+    public static void f(String tag, Supplier<String> value, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, LogLevel.FATAL, config);
+    }
+
+    /**
+     * Prints a {@link LogLevel#INFO} message with one {@code {}} placeholder, formatted only if
+     * {@link LogLevel#INFO} is enabled. Use it as follows:
+     * <pre>
+     *     Log.i("foo", "this is an info text about {}", state);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg     {@link Object}
+     */
+    public static void i(String tag, String pattern, Object arg) {
+        write(tag, LogLevel.INFO, pattern, 1, arg, null, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#TRACE} message with one {@code {}} placeholder, formatted only if
+     * {@link LogLevel#TRACE} is enabled. Use it as follows:
+     * <pre>
+     *     Log.t("foo", "this is a trace text about {}", state);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg     {@link Object}
+     */
+    public static void t(String tag, String pattern, Object arg) {
+        write(tag, LogLevel.TRACE, pattern, 1, arg, null, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#DEBUG} message with one {@code {}} placeholder, formatted only if
+     * {@link LogLevel#DEBUG} is enabled. Use it as follows:
+     * <pre>
+     *     Log.d("foo", "this is a debug text about {}", state);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg     {@link Object}
+     */
+    public static void d(String tag, String pattern, Object arg) {
+        write(tag, LogLevel.DEBUG, pattern, 1, arg, null, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ALERT} message with one {@code {}} placeholder, formatted only if
+     * {@link LogLevel#ALERT} is enabled. Use it as follows:
+     * <pre>
+     *     Log.a("foo", "this is an alert text about {}", state);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg     {@link Object}
+     */
+    public static void a(String tag, String pattern, Object arg) {
+        write(tag, LogLevel.ALERT, pattern, 1, arg, null, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#WARNING} message with one {@code {}} placeholder, formatted only if
+     * {@link LogLevel#WARNING} is enabled. Use it as follows:
+     * <pre>
+     *     Log.w("foo", "this is a warning text about {}", state);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg     {@link Object}
+     */
+    public static void w(String tag, String pattern, Object arg) {
+        write(tag, LogLevel.WARNING, pattern, 1, arg, null, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#CRITICAL} message with one {@code {}} placeholder, formatted only if
+     * {@link LogLevel#CRITICAL} is enabled. Use it as follows:
+     * <pre>
+     *     Log.c("foo", "this is a critical text about {}", state);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg     {@link Object}
+     */
+    public static void c(String tag, String pattern, Object arg) {
+        write(tag, LogLevel.CRITICAL, pattern, 1, arg, null, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ERROR} message with one {@code {}} placeholder, formatted only if
+     * {@link LogLevel#ERROR} is enabled. Use it as follows:
+     * <pre>
+     *     Log.e("foo", "this is an error text about {}", state);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg     {@link Object}
+     */
+    public static void e(String tag, String pattern, Object arg) {
+        write(tag, LogLevel.ERROR, pattern, 1, arg, null, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#FATAL} message with one {@code {}} placeholder, formatted only if
+     * {@link LogLevel#FATAL} is enabled. Use it as follows:
+     * <pre>
+     *     Log.f("foo", "this is a fatal text about {}", state);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg     {@link Object}
+     */
+    public static void f(String tag, String pattern, Object arg) {
+        write(tag, LogLevel.FATAL, pattern, 1, arg, null, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#INFO} message with two {@code {}} placeholders, formatted only if
+     * {@link LogLevel#INFO} is enabled. Use it as follows:
+     * <pre>
+     *     Log.i("foo", "user {} took {} ms", id, ms);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg1    {@link Object}
+     * @param arg2    {@link Object}
+     */
+    public static void i(String tag, String pattern, Object arg1, Object arg2) {
+        write(tag, LogLevel.INFO, pattern, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#TRACE} message with two {@code {}} placeholders, formatted only if
+     * {@link LogLevel#TRACE} is enabled. Use it as follows:
+     * <pre>
+     *     Log.t("foo", "user {} took {} ms", id, ms);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg1    {@link Object}
+     * @param arg2    {@link Object}
+     */
+    public static void t(String tag, String pattern, Object arg1, Object arg2) {
+        write(tag, LogLevel.TRACE, pattern, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#DEBUG} message with two {@code {}} placeholders, formatted only if
+     * {@link LogLevel#DEBUG} is enabled. Use it as follows:
+     * <pre>
+     *     Log.d("foo", "user {} took {} ms", id, ms);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg1    {@link Object}
+     * @param arg2    {@link Object}
+     */
+    public static void d(String tag, String pattern, Object arg1, Object arg2) {
+        write(tag, LogLevel.DEBUG, pattern, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ALERT} message with two {@code {}} placeholders, formatted only if
+     * {@link LogLevel#ALERT} is enabled. Use it as follows:
+     * <pre>
+     *     Log.a("foo", "user {} took {} ms", id, ms);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg1    {@link Object}
+     * @param arg2    {@link Object}
+     */
+    public static void a(String tag, String pattern, Object arg1, Object arg2) {
+        write(tag, LogLevel.ALERT, pattern, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#WARNING} message with two {@code {}} placeholders, formatted only if
+     * {@link LogLevel#WARNING} is enabled. Use it as follows:
+     * <pre>
+     *     Log.w("foo", "user {} took {} ms", id, ms);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg1    {@link Object}
+     * @param arg2    {@link Object}
+     */
+    public static void w(String tag, String pattern, Object arg1, Object arg2) {
+        write(tag, LogLevel.WARNING, pattern, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#CRITICAL} message with two {@code {}} placeholders, formatted only if
+     * {@link LogLevel#CRITICAL} is enabled. Use it as follows:
+     * <pre>
+     *     Log.c("foo", "user {} took {} ms", id, ms);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg1    {@link Object}
+     * @param arg2    {@link Object}
+     */
+    public static void c(String tag, String pattern, Object arg1, Object arg2) {
+        write(tag, LogLevel.CRITICAL, pattern, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ERROR} message with two {@code {}} placeholders, formatted only if
+     * {@link LogLevel#ERROR} is enabled. Use it as follows:
+     * <pre>
+     *     Log.e("foo", "user {} took {} ms", id, ms);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg1    {@link Object}
+     * @param arg2    {@link Object}
+     */
+    public static void e(String tag, String pattern, Object arg1, Object arg2) {
+        write(tag, LogLevel.ERROR, pattern, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#FATAL} message with two {@code {}} placeholders, formatted only if
+     * {@link LogLevel#FATAL} is enabled. Use it as follows:
+     * <pre>
+     *     Log.f("foo", "user {} took {} ms", id, ms);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param arg1    {@link Object}
+     * @param arg2    {@link Object}
+     */
+    public static void f(String tag, String pattern, Object arg1, Object arg2) {
+        write(tag, LogLevel.FATAL, pattern, 2, arg1, arg2, null);
+    }
+
+    /**
+     * Prints a {@link LogLevel#INFO} message with any number of {@code {}} placeholders, formatted only if
+     * {@link LogLevel#INFO} is enabled. Use it as follows:
+     * <pre>
+     *     Log.i("foo", "user {} took {} ms in {}", id, ms, step);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param args    {@link Object}
+     */
+    public static void i(String tag, String pattern, Object... args) {
+        write(tag, LogLevel.INFO, pattern, args.length, null, null, args);
+    }
+
+    /**
+     * Prints a {@link LogLevel#TRACE} message with any number of {@code {}} placeholders, formatted only if
+     * {@link LogLevel#TRACE} is enabled. Use it as follows:
+     * <pre>
+     *     Log.t("foo", "user {} took {} ms in {}", id, ms, step);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param args    {@link Object}
+     */
+    public static void t(String tag, String pattern, Object... args) {
+        write(tag, LogLevel.TRACE, pattern, args.length, null, null, args);
+    }
+
+    /**
+     * Prints a {@link LogLevel#DEBUG} message with any number of {@code {}} placeholders, formatted only if
+     * {@link LogLevel#DEBUG} is enabled. Use it as follows:
+     * <pre>
+     *     Log.d("foo", "user {} took {} ms in {}", id, ms, step);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param args    {@link Object}
+     */
+    public static void d(String tag, String pattern, Object... args) {
+        write(tag, LogLevel.DEBUG, pattern, args.length, null, null, args);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ALERT} message with any number of {@code {}} placeholders, formatted only if
+     * {@link LogLevel#ALERT} is enabled. Use it as follows:
+     * <pre>
+     *     Log.a("foo", "user {} took {} ms in {}", id, ms, step);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param args    {@link Object}
+     */
+    public static void a(String tag, String pattern, Object... args) {
+        write(tag, LogLevel.ALERT, pattern, args.length, null, null, args);
+    }
+
+    /**
+     * Prints a {@link LogLevel#WARNING} message with any number of {@code {}} placeholders, formatted only if
+     * {@link LogLevel#WARNING} is enabled. Use it as follows:
+     * <pre>
+     *     Log.w("foo", "user {} took {} ms in {}", id, ms, step);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param args    {@link Object}
+     */
+    public static void w(String tag, String pattern, Object... args) {
+        write(tag, LogLevel.WARNING, pattern, args.length, null, null, args);
+    }
+
+    /**
+     * Prints a {@link LogLevel#CRITICAL} message with any number of {@code {}} placeholders, formatted only if
+     * {@link LogLevel#CRITICAL} is enabled. Use it as follows:
+     * <pre>
+     *     Log.c("foo", "user {} took {} ms in {}", id, ms, step);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param args    {@link Object}
+     */
+    public static void c(String tag, String pattern, Object... args) {
+        write(tag, LogLevel.CRITICAL, pattern, args.length, null, null, args);
+    }
+
+    /**
+     * Prints a {@link LogLevel#ERROR} message with any number of {@code {}} placeholders, formatted only if
+     * {@link LogLevel#ERROR} is enabled. Use it as follows:
+     * <pre>
+     *     Log.e("foo", "user {} took {} ms in {}", id, ms, step);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param args    {@link Object}
+     */
+    public static void e(String tag, String pattern, Object... args) {
+        write(tag, LogLevel.ERROR, pattern, args.length, null, null, args);
+    }
+
+    /**
+     * Prints a {@link LogLevel#FATAL} message with any number of {@code {}} placeholders, formatted only if
+     * {@link LogLevel#FATAL} is enabled. Use it as follows:
+     * <pre>
+     *     Log.f("foo", "user {} took {} ms in {}", id, ms, step);
+     * </pre>
+     *
+     * @param tag     {@link String}
+     * @param pattern {@link String}
+     * @param args    {@link Object}
+     */
+    public static void f(String tag, String pattern, Object... args) {
+        write(tag, LogLevel.FATAL, pattern, args.length, null, null, args);
+    }
+
+
+    /**
+     * Prints a general string. Use it as follows:
+     * <pre>
+     *     Log.raw("foo", "this is a fatal text");
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link String}
+     */
+    public static void raw(String tag, String value) {
+        write(tag, value, null, null);
+
+    }
+
+    /**
+     * Prints a general string followed by the stack trace of an exception, for {@link DebugManager}.
+     *
+     * @param tag    {@link String}
+     * @param value  {@link String}
+     * @param thrown {@link Throwable} nullable
+     */
+    static void raw(String tag, String value, Throwable thrown) {
+        write(tag, value, thrown, null, null);
+    }
+
+    /**
+     * Prints a general string. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.FORMAT = LogProperties.VALUE.toString();
+     *     Log.raw("test", "raw test", config);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link String}
+     * @param config {@link LocalLogConfig}
+     */
+    public static void raw(String tag, String value, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, null, config);
+
+    }
+
+    /**
+     * Prints a general string that is built when it is written. Use it as follows:
+     * <pre>
+     *     Log.raw("foo", () -> "this is a general text about " + state);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link Supplier}
+     */
+    public static void raw(String tag, Supplier<String> value) {
+        write(tag, value, null, null);
+    }
+
+    /**
+     * Prints a general string that is built when it is written. Use it as follows:
+     * <pre>
+     *     LocalLogConfig config = new LocalLogConfig();
+     *     config.FORMAT = LogProperties.VALUE.toString();
+     *     Log.raw("test", () -> "raw test about " + state, config);
+     * </pre>
+     *
+     * @param tag    {@link String}
+     * @param value  {@link Supplier}
+     * @param config {@link LocalLogConfig}
+     */
+    public static void raw(String tag, Supplier<String> value, LocalLogConfig config) {
+        Objects.requireNonNull(config);
+        write(tag, value, null, config);
+    }
+
+    /**
+     * Check if a {@link LogLevel} passes {@link GlobalLogConfig#LOG_LEVEL}. Use it to skip building
+     * expensive messages as follows:
+     * <pre>
+     *     if (Log.isEnabled(LogLevel.DEBUG)) Log.d("foo", dump(state));
+     * </pre>
+     * {@link LogLevelOverrides} are not taken into account, see {@link #isEnabled(String, LogLevel)}.
+     *
+     * @param level {@link LogLevel}
+     * @return boolean
+     */
+    public static boolean isEnabled(LogLevel level) {
+        return level.value >= GlobalLogConfig.LOG_LEVEL.value;
+    }
+
+    /**
+     * Check if a {@link LogLevel} passes the {@link LocalLogConfig#LOG_LEVEL} of a config, or
+     * {@link GlobalLogConfig#LOG_LEVEL} if the config does not set one. Use it as follows:
+     * <pre>
+     *     if (Log.isEnabled(LogLevel.DEBUG, config)) Log.d("foo", dump(state), config);
+     * </pre>
+     *
+     * @param level  {@link LogLevel}
+     * @param config {@link LocalLogConfig}
+     * @return boolean
+     */
+    public static boolean isEnabled(LogLevel level, LocalLogConfig config) {
+        LogLevel min = config.LOG_LEVEL;
+        return level.value >= (min != null ? min : GlobalLogConfig.LOG_LEVEL).value;
+    }
+
+    /**
+     * Check if a {@link LogLevel} is enabled for a tag, taking {@link LogLevelOverrides} into account. Use it
+     * as follows:
+     * <pre>
+     *     if (Log.isEnabled("foo", LogLevel.DEBUG)) Log.d("foo", dump(state));
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param level {@link LogLevel}
+     * @return boolean
+     */
+    public static boolean isEnabled(String tag, LogLevel level) {
+        return isEnabled(tag, level, null);
+    }
+
+    /**
+     * Check if a {@link LogLevel} is enabled for a tag and a config, taking {@link LogLevelOverrides} into
+     * account. Without a config, the level is enabled if any of the {@link GlobalLogConfig#SINKS} accepts it.
+     *
+     * <p>
+     * This is the check every log call starts with. Without sinks or overrides it reads
+     * {@link GlobalLogConfig#SINKS}, the level of the config and the volatile overrides snapshot, which is
+     * compared with the empty one. A disabled call then also reads {@link GlobalLogConfig#METRICS} and
+     * {@link GlobalLogConfig#FLIGHT_RECORDER} before it returns, without locking, allocating or walking the
+     * stack.
+     *
+     * @param tag    {@link String}
+     * @param level  {@link LogLevel}
+     * @param config {@link LocalLogConfig} nullable
+     * @return boolean
+     */
+    public static boolean isEnabled(String tag, LogLevel level, LocalLogConfig config) {
+        if (config == null) {
+            List<LogSink> sinks = GlobalLogConfig.SINKS;
+            if (sinks != null && !sinks.isEmpty()) {
+                for (int i = 0; i < sinks.size(); i++) {
+                    if (isEnabled(tag, level, sinks.get(i))) return true;
+                }
+                return false;
+            }
+        }
+        LogLevel min = config != null ? config.LOG_LEVEL : null;
+        return LogLevelOverrides.isEnabled(tag, level, min != null ? min : GlobalLogConfig.LOG_LEVEL);
+    }
+
+    /**
+     * Prints a dynamic {@link LogLevel} string. Use it as follows:
+     * <pre>
+     *     Log.write("foo", "this is a fatal text", LogLevel.FATAL);
+     * </pre>
+     *
+     * @param tag   {@link String}
+     * @param value {@link String}
+     * @param level {@link LogLevel} nullable
+     */
+    private static void write(String tag, String value, LogLevel level, LocalLogConfig config) {
+        write(tag, value, null, level, config);
+    }
+
+    /**
+     * Prints a dynamic {@link LogLevel} string followed by the stack trace of an exception.
+     *
+     * @param tag    {@link String}
+     * @param value  {@link String}
+     * @param thrown {@link Throwable} nullable
+     * @param level  {@link LogLevel} nullable
+     */
+    private static void write(String tag, String value, Throwable thrown, LogLevel level, LocalLogConfig config) {
+        boolean timed = GlobalLogConfig.METRICS;
+        long start = timed ? System.nanoTime() : 0;
+        if (level != null && !isEnabled(tag, level, config)) {
+            if (timed) LogMetrics.filtered(1);
+            FlightRecorder recorder = GlobalLogConfig.FLIGHT_RECORDER;
+            if (recorder != null && config == null) recorder.record(tag, level, value, null, null, 0, null, null, null, thrown);
+            return;
+        }
+        double rate = sample(tag, level, config);
+        if (rate == 0) {
+            if (timed) LogMetrics.sampled(1);
+            return;
+        }
+        LogEvent event = capture(tag, level, config);
+        if (event == null) return;
+        if (rate != 1) event.sampleRate = rate;
+        event.value = value;
+        event.thrown = thrown;
+        emit(event);
+        if (timed) LogMetrics.latency(System.nanoTime() - start);
+    }
+
+    /**
+     * Prints a dynamic {@link LogLevel} string that is only built if the level is enabled.
+     *
+     * @param tag   {@link String}
+     * @param value {@link Supplier}
+     * @param level {@link LogLevel} nullable
+     */
+    private static void write(String tag, Supplier<String> value, LogLevel level, LocalLogConfig config) {
+        boolean timed = GlobalLogConfig.METRICS;
+        long start = timed ? System.nanoTime() : 0;
+        if (level != null && !isEnabled(tag, level, config)) {
+            if (timed) LogMetrics.filtered(1);
+            FlightRecorder recorder = GlobalLogConfig.FLIGHT_RECORDER;
+            if (recorder != null && config == null) recorder.record(tag, level, null, value, null, 0, null, null, null, null);
+            return;
+        }
+        double rate = sample(tag, level, config);
+        if (rate == 0) {
+            if (timed) LogMetrics.sampled(1);
+            return;
+        }
+        LogEvent event = capture(tag, level, config);
+        if (event == null) return;
+        if (rate != 1) event.sampleRate = rate;
+        try {
+            event.value = value.get();
+        } catch (RuntimeException | Error e) {
+            event.clear();
+            throw e;
+        }
+        emit(event);
+        if (timed) LogMetrics.latency(System.nanoTime() - start);
+    }
+
+    /**
+     * Prints a dynamic {@link LogLevel} {@code {}} style message that is only formatted if the level is enabled.
+     *
+     * @param tag      {@link String}
+     * @param level    {@link LogLevel}
+     * @param pattern  {@link String}
+     * @param argCount number of arguments
+     * @param arg1     first argument
+     * @param arg2     second argument
+     * @param args     every argument when there are more than two, otherwise null
+     */
+    private static void write(String tag, LogLevel level, String pattern, int argCount, Object arg1, Object arg2, Object[] args) {
+        boolean timed = GlobalLogConfig.METRICS;
+        long start = timed ? System.nanoTime() : 0;
+        if (!isEnabled(tag, level)) {
+            if (timed) LogMetrics.filtered(1);
+            FlightRecorder recorder = GlobalLogConfig.FLIGHT_RECORDER;
+            if (recorder != null) recorder.record(tag, level, null, null, pattern, argCount, arg1, arg2, args, null);
+            return;
+        }
+        double rate = sample(tag, level, null);
+        if (rate == 0) {
+            if (timed) LogMetrics.sampled(1);
+            return;
+        }
+        LogEvent event = capture(tag, level, null);
+        if (event == null) return;
+        if (rate != 1) event.sampleRate = rate;
+        event.pattern = pattern;
+        event.argCount = argCount;
+        event.arg1 = arg1;
+        event.arg2 = arg2;
+        event.args = args;
+        emit(event);
+        if (timed) LogMetrics.latency(System.nanoTime() - start);
+    }
+
+    /**
+     * Apply the {@link LogSampler} of a config to an enabled event, before anything is captured.
+     *
+     * @return 0 if the event is dropped, otherwise the number of events it stands for
+     */
+    private static double sample(String tag, LogLevel level, LocalLogConfig config) {
+        if (level == null) return 1;
+        LogSampler sampler = config != null && config.SAMPLER != null ? config.SAMPLER : GlobalLogConfig.SAMPLER;
+        return sampler != null ? sampler.sample(tag, level) : 1;
+    }
+
+    /**
+     * Fill an event with everything but the message: settings, timestamp and caller location.
+     *
+     * @return {@link LogEvent}, or null if the {@link RateLimit} suppresses the event
+     */
+    private static LogEvent capture(String tag, LogLevel level, LocalLogConfig config) {
+        ResolvedLogConfig resolved = ResolvedLogConfig.of(config);
+        List<LogSink> sinks = config == null ? GlobalLogConfig.SINKS : null;
+        if (sinks != null && sinks.isEmpty()) sinks = null;
+        RateLimit limit = resolved.rateLimit;
+        boolean location = sinks == null ? resolved.capturesLocation(level) : capturesLocation(sinks, level);
+        CallSite site = location || limit != null && limit.perCallSite ? CallerLocator.locate() : null;
+        LogSite logSite = LogSite.of(tag, location ? site : null);
+        if (limit != null) {
+            LogSite limited = !limit.perCallSite ? LogSite.of(tag, null) : location ? logSite : LogSite.of(tag, site);
+            if (!RateLimiter.tryAcquire(limit, limited, level, sinks == null ? resolved : null)) {
+                if (GlobalLogConfig.METRICS) LogMetrics.suppressed(1);
+                return null;
+            }
+        }
+        LogEvent event = capture(tag, level, location ? site : null, logSite, resolved);
+        event.sinks = sinks;
+        FlightRecorder recorder = GlobalLogConfig.FLIGHT_RECORDER;
+        if (recorder != null && config == null && recorder.dumps(level)) replay(recorder, event);
+        return event;
+    }
+
+    /**
+     * Write the events a {@link FlightRecorder} kept, wherever the event that triggers the dump goes
+     *
+     * @param recorder {@link FlightRecorder}
+     * @param trigger  {@link LogEvent} at or above the dump level
+     */
+    private static void replay(FlightRecorder recorder, LogEvent trigger) {
+        List<LogEvent> events = recorder.drain();
+        if (events.isEmpty()) return;
+        List<LogSink> sinks = null;
+        if (trigger.sinks != null) {
+            sinks = new ArrayList<>();
+            for (LogSink sink : trigger.sinks) {
+                if (accepts(ResolvedLogConfig.of(sink), trigger)) sinks.add(sink);
+            }
+        }
+        for (LogEvent event : events) {
+            event.config = trigger.config;
+            event.sinks = sinks;
+            event.replayed = true;
+            emit(event);
+        }
+    }
+
+    /**
+     * Check if any sink captures the caller location of an event
+     *
+     * @param sinks {@link List} of {@link LogSink}
+     * @param level {@link LogLevel} nullable for raw events
+     * @return boolean
+     */
+    static boolean capturesLocation(List<LogSink> sinks, LogLevel level) {
+        for (int i = 0; i < sinks.size(); i++) {
+            if (ResolvedLogConfig.of(sinks.get(i)).capturesLocation(level)) return true;
+        }
+        return false;
+    }
+
+    private static LogEvent capture(String tag, LogLevel level, CallSite site, LogSite logSite, ResolvedLogConfig resolved) {
+        LogEvent event = EVENT.get();
+        if (event.inUse) event = new LogEvent();
+        event.inUse = true;
+        event.level = level;
+        event.tag = tag;
+        event.timestamp = resolved.clock.currentTimeMicros();
+        event.thread = Thread.currentThread();
+        event.context = LogContext.entries();
+        event.site = site;
+        event.logSite = logSite;
+        event.config = resolved;
+        return event;
+    }
+
+    /**
+     * Log a summary of suppressed events, bypassing level checks and the {@link RateLimit}.
+     *
+     * @param site    {@link LogSite} whose events were suppressed
+     * @param level   highest {@link LogLevel} that was suppressed, nullable for raw events
+     * @param message {@link String}
+     * @param config  {@link ResolvedLogConfig} of the suppressed events, or null if they were written to
+     *                {@link GlobalLogConfig#SINKS}
+     */
+    static void summary(LogSite site, LogLevel level, String message, ResolvedLogConfig config) {
+        LogEvent event = capture(site.tag, level, site.site, site, config != null ? config : ResolvedLogConfig.of(null));
+        if (config == null) {
+            List<LogSink> sinks = GlobalLogConfig.SINKS;
+            if (sinks != null && !sinks.isEmpty()) event.sinks = sinks;
+        }
+        event.value = message;
+        emit(event);
+    }
+
+    private static void emit(LogEvent event) {
+        if (GlobalLogConfig.METRICS) LogMetrics.event(event.level);
+        try {
+            dispatch(event);
+        } finally {
+            event.clear();
+        }
+    }
+
+    /**
+     * Hand a captured event to the asynchronous writer thread, or write it on the calling thread.
+     *
+     * @param event {@link LogEvent}
+     */
+    private static void dispatch(LogEvent event) {
+        if (event.sinks != null) {
+            fanOut(event);
+            return;
+        }
+        if (GlobalLogConfig.ASYNC) {
+            event.freezeValue();
+            AsyncLogQueue queue = AsyncLogQueue.get();
+            if (queue != null && queue.publish(event)) return;
+        }
+        writeString(event, true);
+    }
+
+    /**
+     * Hand an event to every {@link LogSink} that accepts its level. Synchronous sinks that render events the
+     * same way share one rendering, up to the first 64 sinks; later sinks render their own.
+     *
+     * @param event {@link LogEvent}
+     */
+    private static void fanOut(LogEvent event) {
+        List<LogSink> sinks = event.sinks;
+        int count = sinks.size();
+        long done = 0;
+        for (int i = 0; i < count; i++) {
+            if (i < 64 && (done & 1L << i) != 0) continue;
+            LogSink sink = sinks.get(i);
+            ResolvedLogConfig resolved = ResolvedLogConfig.of(sink);
+            if (!accepts(resolved, event)) continue;
+            event.config = resolved;
+            if (sink.isAsync()) {
+                event.freezeValue();
+                AsyncLogQueue queue = AsyncLogQueue.get(sink);
+                if (queue != null && queue.publish(event)) continue;
+            }
+            if (resolved.binaryWriter != null) {
+                writeString(event, true);
+                continue;
+            }
+            LogBuffer buffer = LogBuffer.acquire();
+            try {
+                StringBuilder out = buffer.text;
+                resolved.encoder.encode(event, out);
+                out.append('\n');
+                char[] chars = buffer.chars();
+                int length = out.length();
+                resolved.output.write(chars, length, event.level, resolved.flushPolicy, true);
+                for (int j = i + 1; j < count && j < 64; j++) {
+                    if ((done & 1L << j) != 0) continue;
+                    LogSink other = sinks.get(j);
+                    ResolvedLogConfig same = ResolvedLogConfig.of(other);
+                    if (other.isAsync() || same.binaryWriter != null || !rendersAlike(resolved, same) || !accepts(same, event)) continue;
+                    done |= 1L << j;
+                    same.output.write(chars, length, event.level, same.flushPolicy, true);
+                }
+            } catch (IOException e) {
+                failed(e);
+            } finally {
+                buffer.release();
+            }
+        }
+    }
+
+    private static boolean accepts(ResolvedLogConfig config, LogEvent event) {
+        return event.level == null || event.replayed || LogLevelOverrides.isEnabled(event.tag, event.level, config.level);
+    }
+
+    private static boolean rendersAlike(ResolvedLogConfig a, ResolvedLogConfig b) {
+        return a.encoder == b.encoder && a.template == b.template && a.style == b.style
+                && a.timestampFormat == b.timestampFormat && a.stackTraceFormat == b.stackTraceFormat;
+    }
+
+    /**
+     * Render an event with its {@link LogEncoder} and write it to its output, or encode it to its
+     * {@link BinaryLogWriter} if it has one.
+     *
+     * @param event {@link LogEvent}
+     * @param flush whether to flush right away when the {@link FlushPolicy} asks for it
+     * @return true if the {@link FlushPolicy} asks for a flush that was not done yet
+     */
+    static boolean writeString(LogEvent event, boolean flush) {
+        if (event.config.binaryWriter != null) {
+            try {
+                event.config.binaryWriter.write(event, event.config.flushPolicy);
+            } catch (IOException e) {
+                failed(e);
+            }
+            return false;
+        }
+        LogBuffer buffer = LogBuffer.acquire();
+        try {
+            StringBuilder out = buffer.text;
+            event.config.encoder.encode(event, out);
+            out.append('\n');
+            return event.config.output.write(buffer.chars(), out.length(), event.level, event.config.flushPolicy, flush);
+        } catch (IOException e) {
+            failed(e);
+            return false;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Flush a writer, reporting failures to {@link DebugManager}.
+     *
+     * @param writer {@link Writer}
+     */
+    static void flush(Writer writer) {
+        try {
+            writer.flush();
+            if (GlobalLogConfig.METRICS) LogMetrics.flushed();
+        } catch (IOException e) {
+            failed(e);
+        }
+    }
+
+    /**
+     * Report a failed write or flush to {@link DebugManager}, counting it in {@link LogMetrics}. The failure is
+     * never written to a log writer, which may be the one that failed.
+     *
+     * @param e {@link IOException}
+     */
+    static void failed(IOException e) {
+        if (GlobalLogConfig.METRICS) LogMetrics.error();
+        DebugManager.getInstance().report(e);
+    }
+
+    /**
+     * Log pending {@link RateLimit} and {@link DebugManager} summaries and stop the asynchronous writer thread
+     * after every queued event has been written, then flush every writer with pending events, every
+     * {@link BinaryLogWriter} and {@link GlobalLogConfig#WRITER}. Call it before the application exits as follows:
+     * <pre>
+     *     GlobalLogConfig.ASYNC = true;
+     *     Log.i("foo", "this is written by a background thread");
+     *     Log.shutdown();
+     * </pre>
+     * A shutdown hook calls this method when the JVM exits. Events logged after it are written on the
+     * calling thread until an asynchronous event starts a new writer thread.
+     */
+    public static void shutdown() {
+        RateLimiter.summarize(true);
+        TraceFingerprints.summarize(true);
+        AsyncLogQueue.shutdownInstance();
+        LogOutput.flushAll();
+        BinaryLogWriter.flushAll();
+        flush(GlobalLogConfig.WRITER);
+    }
+
+    /**
+     * Make sure {@link #shutdown()} runs when the JVM exits.
+     *
+     * @return true
+     */
+    static synchronized boolean installShutdownHook() {
+        if (!hookInstalled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                AsyncLogQueue.terminate();
+                shutdown();
+            }, "log-shutdown"));
+            hookInstalled = true;
         }
+        return true;
     }
 }
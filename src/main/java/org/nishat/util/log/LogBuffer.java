@@ -0,0 +1,68 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+/**
+ * Per-thread text buffer used to render events. Events are rendered into {@link #text} and handed to the
+ * writer as a reused {@code char[]}, so a steady-state log call does not allocate. A buffer that is already
+ * in use on the current thread, for example while an argument's {@code toString()} logs again, is never
+ * handed out twice.
+ */
+final class LogBuffer {
+    private static final int MAX_RETAINED = 16 * 1024;
+    private static final ThreadLocal<LogBuffer> CURRENT = ThreadLocal.withInitial(LogBuffer::new);
+
+    final StringBuilder text = new StringBuilder(256);
+    private char[] chars = new char[256];
+    private boolean inUse;
+
+    /**
+     * Get an empty buffer for the current thread.
+     *
+     * @return {@link LogBuffer}
+     */
+    static LogBuffer acquire() {
+        LogBuffer buffer = CURRENT.get();
+        if (buffer.inUse) buffer = new LogBuffer();
+        buffer.inUse = true;
+        buffer.text.setLength(0);
+        return buffer;
+    }
+
+    /**
+     * Copy the rendered text into the reused char array.
+     *
+     * @return char array holding {@code text.length()} chars
+     */
+    char[] chars() {
+        int length = text.length();
+        if (chars.length < length) chars = new char[Math.max(length, chars.length * 2)];
+        text.getChars(0, length, chars, 0);
+        return chars;
+    }
+
+    /**
+     * Give the buffer back. Buffers that grew beyond {@value #MAX_RETAINED} chars are not kept.
+     */
+    void release() {
+        inUse = false;
+        if ((text.capacity() > MAX_RETAINED || chars.length > MAX_RETAINED) && CURRENT.get() == this) CURRENT.remove();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+/**
+ * Source of event timestamps. Replace {@link GlobalLogConfig#CLOCK} to log with a higher precision clock,
+ * or with a fixed clock in tests, as follows:
+ * <pre>
+ *     GlobalLogConfig.CLOCK = () -> 1680000000000000L;
+ * </pre>
+ */
+@FunctionalInterface
+public interface LogClock {
+    /**
+     * System clock with millisecond precision
+     */
+    LogClock SYSTEM = () -> System.currentTimeMillis() * 1000;
+
+    /**
+     * Get the current time
+     *
+     * @return microseconds since the epoch
+     */
+    long currentTimeMicros();
+}
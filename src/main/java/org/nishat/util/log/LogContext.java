@@ -0,0 +1,124 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+/**
+ * Key-values of the current thread that are added to every event it logs through a structured
+ * {@link LogEncoder}, such as {@link LogEncoder#JSON}. Use it as follows:
+ * <pre>
+ *     LogContext.put("requestId", id);
+ *     try {
+ *         Log.i("http", "request handled");
+ *     } finally {
+ *         LogContext.remove("requestId");
+ *     }
+ * </pre>
+ *
+ * @implSpec The entries of a thread are an immutable array that is replaced on every change, so an event only
+ * keeps a reference to it and a log call does not copy anything.
+ */
+public final class LogContext {
+    static final String[] EMPTY = new String[0];
+    private static final ThreadLocal<String[]> ENTRIES = ThreadLocal.withInitial(() -> EMPTY);
+
+    private LogContext() {
+    }
+
+    /**
+     * Set a key-value of the current thread
+     *
+     * @param key   {@link String}
+     * @param value {@link String} nullable to remove the key
+     */
+    public static void put(String key, String value) {
+        if (key == null) throw new NullPointerException("key");
+        if (value == null) {
+            remove(key);
+            return;
+        }
+        String[] entries = ENTRIES.get();
+        int at = indexOf(entries, key);
+        String[] updated;
+        if (at >= 0) {
+            updated = entries.clone();
+        } else {
+            updated = new String[entries.length + 2];
+            System.arraycopy(entries, 0, updated, 0, entries.length);
+            at = entries.length;
+            updated[at] = key;
+        }
+        updated[at + 1] = value;
+        ENTRIES.set(updated);
+    }
+
+    /**
+     * Get a key-value of the current thread
+     *
+     * @param key {@link String}
+     * @return {@link String}, or null if the key is not set
+     */
+    public static String get(String key) {
+        String[] entries = ENTRIES.get();
+        int at = indexOf(entries, key);
+        return at >= 0 ? entries[at + 1] : null;
+    }
+
+    /**
+     * Remove a key-value of the current thread
+     *
+     * @param key {@link String}
+     */
+    public static void remove(String key) {
+        String[] entries = ENTRIES.get();
+        int at = indexOf(entries, key);
+        if (at < 0) return;
+        if (entries.length == 2) {
+            ENTRIES.remove();
+            return;
+        }
+        String[] updated = new String[entries.length - 2];
+        System.arraycopy(entries, 0, updated, 0, at);
+        System.arraycopy(entries, at + 2, updated, at, entries.length - at - 2);
+        ENTRIES.set(updated);
+    }
+
+    /**
+     * Remove every key-value of the current thread
+     */
+    public static void clear() {
+        ENTRIES.remove();
+    }
+
+    /**
+     * Get the key-values of the current thread
+     *
+     * @return keys at even and values at odd indexes, never modified
+     */
+    static String[] entries() {
+        return ENTRIES.get();
+    }
+
+    private static int indexOf(String[] entries, String key) {
+        for (int i = 0; i < entries.length; i += 2) {
+            if (entries[i].equals(key)) return i;
+        }
+        return -1;
+    }
+}
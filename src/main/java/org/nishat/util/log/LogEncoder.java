@@ -0,0 +1,372 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+/**
+ * Shape of a written event. {@link #TEXT} renders the {@link GlobalLogConfig#FORMAT} template, while the
+ * structured encoders write every field of the event, plus the key-values of {@link LogContext}, as one line:
+ * <pre>
+ *     GlobalLogConfig.ENCODER = LogEncoder.JSON;
+ *     Log.e("db", "connection lost");
+ *     // {"timestamp":"2023-03-29T17:33:18.123","level":"ERROR","thread":"main","package":"Foo","tag":"db","value":"connection lost","file":"Foo.java","line":12}
+ *     GlobalLogConfig.ENCODER = LogEncoder.LOGFMT;
+ *     Log.e("db", "connection lost");
+ *     // timestamp=2023-03-29T17:33:18.123 level=ERROR thread=main package=Foo tag=db value="connection lost" file=Foo.java line=12
+ * </pre>
+ * Structured encoders are never colored. Fields that an event does not have, such as the location when it is
+ * not captured, are left out. Raw events have no level field. The stack trace of a logged exception is the
+ * {@code exception} field, while {@link #TEXT} writes it on the lines after the event. Events kept by a
+ * {@link LogSampler} have a {@code sample_rate} field.
+ *
+ * @implSpec Fields are escaped while they are appended to the output buffer, without intermediate strings.
+ * Instances are immutable and thread-safe.
+ */
+public abstract class LogEncoder {
+    /**
+     * The {@link GlobalLogConfig#FORMAT} or {@link LocalLogConfig#FORMAT} template
+     */
+    public static final LogEncoder TEXT = new Text();
+
+    /**
+     * One JSON object per line
+     */
+    public static final LogEncoder JSON = new Json();
+
+    /**
+     * One line of space separated {@code key=value} pairs, quoted when needed
+     */
+    public static final LogEncoder LOGFMT = new Logfmt();
+
+    LogEncoder() {
+    }
+
+    /**
+     * Append an event, without the line separator
+     *
+     * @param event {@link LogEvent}
+     * @param out   {@link StringBuilder}
+     */
+    abstract void encode(LogEvent event, StringBuilder out);
+
+    /**
+     * Check if the encoder writes the caller location of events
+     *
+     * @param template {@link FormatTemplate} of the event
+     * @return boolean
+     */
+    abstract boolean usesLocation(FormatTemplate template);
+
+    private static final class Text extends LogEncoder {
+        @Override
+        void encode(LogEvent event, StringBuilder out) {
+            event.config.template.render(event, out);
+            if (event.thrown != null) event.config.stackTraceFormat.append(out.append('\n'), event.thrown);
+        }
+
+        @Override
+        boolean usesLocation(FormatTemplate template) {
+            return template.usesLocation();
+        }
+    }
+
+    /**
+     * Writes the fields of an event in a fixed order. Subclasses only decide how a field is written.
+     */
+    private abstract static class Structured extends LogEncoder {
+        @Override
+        final void encode(LogEvent event, StringBuilder out) {
+            start(out);
+            int start = out.length();
+            key(out, "timestamp", start);
+            int value = beginValue(out);
+            event.config.timestampFormat.format(event.timestamp, out);
+            endValue(out, value);
+            if (event.level != null) {
+                key(out, "level", start);
+                escape(out, event.level.name());
+            }
+            if (event.thread != null) {
+                key(out, "thread", start);
+                escape(out, event.thread.getName());
+            }
+            if (event.site != null) {
+                key(out, "package", start);
+                escape(out, event.site.className);
+            }
+            key(out, "tag", start);
+            escape(out, event.tag);
+            key(out, "value", start);
+            if (event.pattern == null) {
+                escape(out, event.value);
+            } else {
+                value = beginValue(out);
+                event.appendValue(out);
+                endValue(out, value);
+            }
+            if (event.site != null) {
+                if (event.site.fileName != null) {
+                    key(out, "file", start);
+                    escape(out, event.site.fileName);
+                }
+                key(out, "line", start);
+                number(out, event.site.lineNumber);
+            }
+            if (event.sampleRate > 0) {
+                key(out, "sample_rate", start);
+                LogSampler.appendRate(out, event.sampleRate);
+            }
+            if (event.thrown != null) {
+                key(out, "exception", start);
+                value = beginValue(out);
+                event.config.stackTraceFormat.append(out, event.thrown);
+                endValue(out, value);
+            }
+            String[] context = event.context;
+            if (context != null) {
+                for (int i = 0; i < context.length; i += 2) {
+                    key(out, context[i], start);
+                    escape(out, context[i + 1]);
+                }
+            }
+            end(out);
+        }
+
+        @Override
+        final boolean usesLocation(FormatTemplate template) {
+            return true;
+        }
+
+        abstract void start(StringBuilder out);
+
+        /**
+         * Append a key and its separators
+         *
+         * @param out   {@link StringBuilder}
+         * @param key   {@link String}
+         * @param start length of the output when the event started, to tell the first key apart
+         */
+        abstract void key(StringBuilder out, String key, int start);
+
+        abstract void number(StringBuilder out, int value);
+
+        /**
+         * Append an escaped value
+         *
+         * @param out   {@link StringBuilder}
+         * @param value {@link CharSequence} nullable
+         */
+        abstract void escape(StringBuilder out, CharSequence value);
+
+        abstract void end(StringBuilder out);
+
+        /**
+         * Start a value that is appended unescaped, see {@link #endValue}
+         *
+         * @param out {@link StringBuilder}
+         * @return index of the first char of the value
+         */
+        abstract int beginValue(StringBuilder out);
+
+        /**
+         * Finish a value that was appended unescaped since {@link #beginValue}. The value is only copied if
+         * escaping has to change it.
+         *
+         * @param out  {@link StringBuilder}
+         * @param from index returned by {@link #beginValue}
+         */
+        abstract void endValue(StringBuilder out, int from);
+    }
+
+    private static final class Json extends Structured {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        @Override
+        void start(StringBuilder out) {
+            out.append('{');
+        }
+
+        @Override
+        void key(StringBuilder out, String key, int start) {
+            if (out.length() > start) out.append(',');
+            quote(out, key);
+            out.append(':');
+        }
+
+        @Override
+        void number(StringBuilder out, int value) {
+            out.append(value);
+        }
+
+        @Override
+        void escape(StringBuilder out, CharSequence value) {
+            if (value == null) out.append("null");
+            else quote(out, value);
+        }
+
+        @Override
+        int beginValue(StringBuilder out) {
+            out.append('"');
+            return out.length();
+        }
+
+        @Override
+        void endValue(StringBuilder out, int from) {
+            int length = out.length();
+            for (int i = from; i < length; i++) {
+                if (needsEscape(out.charAt(i))) {
+                    String raw = out.substring(from);
+                    out.setLength(from);
+                    escapeBody(out, raw);
+                    break;
+                }
+            }
+            out.append('"');
+        }
+
+        @Override
+        void end(StringBuilder out) {
+            out.append('}');
+        }
+
+        private static void quote(StringBuilder out, CharSequence value) {
+            out.append('"');
+            escapeBody(out, value);
+            out.append('"');
+        }
+
+        private static boolean needsEscape(char c) {
+            return c < 0x20 || c == '"' || c == '\\' || c == '\u2028' || c == '\u2029';
+        }
+
+        private static void escapeBody(StringBuilder out, CharSequence value) {
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.append("\\\"");
+                        break;
+                    case '\\':
+                        out.append("\\\\");
+                        break;
+                    case '\n':
+                        out.append("\\n");
+                        break;
+                    case '\r':
+                        out.append("\\r");
+                        break;
+                    case '\t':
+                        out.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                            out.append("\\u").append(HEX[c >> 12]).append(HEX[c >> 8 & 0xF])
+                                    .append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+                        } else {
+                            out.append(c);
+                        }
+                }
+            }
+        }
+    }
+
+    private static final class Logfmt extends Structured {
+        @Override
+        void start(StringBuilder out) {
+        }
+
+        @Override
+        void key(StringBuilder out, String key, int start) {
+            if (out.length() > start) out.append(' ');
+            int length = key.length();
+            for (int i = 0; i < length; i++) {
+                char c = key.charAt(i);
+                out.append(c <= ' ' || c == '=' || c == '"' ? '_' : c);
+            }
+            out.append('=');
+        }
+
+        @Override
+        void number(StringBuilder out, int value) {
+            out.append(value);
+        }
+
+        @Override
+        void escape(StringBuilder out, CharSequence value) {
+            if (value == null) return;
+            if (!needsQuotes(value, 0)) {
+                out.append(value);
+                return;
+            }
+            out.append('"');
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.append("\\\"");
+                        break;
+                    case '\\':
+                        out.append("\\\\");
+                        break;
+                    case '\n':
+                        out.append("\\n");
+                        break;
+                    case '\r':
+                        out.append("\\r");
+                        break;
+                    case '\t':
+                        out.append("\\t");
+                        break;
+                    default:
+                        out.append(c < 0x20 ? ' ' : c);
+                }
+            }
+            out.append('"');
+        }
+
+        @Override
+        int beginValue(StringBuilder out) {
+            return out.length();
+        }
+
+        @Override
+        void endValue(StringBuilder out, int from) {
+            if (!needsQuotes(out, from)) return;
+            String raw = out.substring(from);
+            out.setLength(from);
+            escape(out, raw);
+        }
+
+        @Override
+        void end(StringBuilder out) {
+        }
+
+        private static boolean needsQuotes(CharSequence value, int from) {
+            int length = value.length();
+            if (length == from) return true;
+            for (int i = from; i < length; i++) {
+                char c = value.charAt(i);
+                if (c <= ' ' || c == '=' || c == '"' || c == '\\') return true;
+            }
+            return false;
+        }
+    }
+}
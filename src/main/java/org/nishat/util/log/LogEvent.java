@@ -0,0 +1,147 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.List;
+
+/**
+ * Mutable holder of a single log event. Instances are reused per thread, so an event must never be
+ * kept after the call that filled it returns.
+ */
+final class LogEvent {
+    LogLevel level;
+    String tag;
+    String value;
+    String pattern;
+    int argCount;
+    Object arg1;
+    Object arg2;
+    Object[] args;
+    /**
+     * Exception whose stack trace follows the message, nullable
+     */
+    Throwable thrown;
+    /**
+     * Microseconds since the epoch
+     */
+    long timestamp;
+    CallSite site;
+    /**
+     * Interned tag and location, nullable
+     */
+    LogSite logSite;
+    /**
+     * Thread that logged the event
+     */
+    Thread thread;
+    /**
+     * {@link LogContext} entries of {@link #thread} when the event was logged
+     */
+    String[] context;
+    /**
+     * {@link GlobalLogConfig#SINKS} to write the event to, or null to write it with {@link #config}
+     */
+    List<LogSink> sinks;
+    ResolvedLogConfig config;
+    /**
+     * Whether the event is dumped by a {@link FlightRecorder}, so it is written whatever its level
+     */
+    boolean replayed;
+    /**
+     * Number of events this one stands for when kept by a {@link LogSampler}, 0 if it was not sampled
+     */
+    double sampleRate;
+    boolean inUse;
+
+    /**
+     * Append the message of this event, formatting {@link #pattern} with its arguments if there is one.
+     *
+     * @param out {@link StringBuilder}
+     */
+    void appendValue(StringBuilder out) {
+        if (pattern != null) ParameterizedMessage.format(out, pattern, argCount, arg1, arg2, args);
+        else out.append(value);
+    }
+
+    /**
+     * Format the message now, so the event no longer refers to arguments that the caller may change after
+     * the log call returns.
+     */
+    void freezeValue() {
+        if (pattern == null) return;
+        value = ParameterizedMessage.format(pattern, argCount, arg1, arg2, args);
+        pattern = null;
+        argCount = 0;
+        arg1 = null;
+        arg2 = null;
+        args = null;
+    }
+
+    /**
+     * Copy every field of another event into this one.
+     *
+     * @param other {@link LogEvent}
+     */
+    void copyFrom(LogEvent other) {
+        level = other.level;
+        tag = other.tag;
+        value = other.value;
+        pattern = other.pattern;
+        argCount = other.argCount;
+        arg1 = other.arg1;
+        arg2 = other.arg2;
+        args = other.args;
+        thrown = other.thrown;
+        timestamp = other.timestamp;
+        site = other.site;
+        logSite = other.logSite;
+        thread = other.thread;
+        context = other.context;
+        sinks = other.sinks;
+        config = other.config;
+        replayed = other.replayed;
+        sampleRate = other.sampleRate;
+    }
+
+    /**
+     * Drop every reference held by this event so a reused instance does not retain caller objects.
+     */
+    void clear() {
+        level = null;
+        tag = null;
+        value = null;
+        pattern = null;
+        argCount = 0;
+        arg1 = null;
+        arg2 = null;
+        args = null;
+        thrown = null;
+        timestamp = 0;
+        site = null;
+        logSite = null;
+        thread = null;
+        context = null;
+        sinks = null;
+        config = null;
+        replayed = false;
+        sampleRate = 0;
+        inUse = false;
+    }
+}
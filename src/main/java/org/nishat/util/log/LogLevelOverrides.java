@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Levels that replace {@link GlobalLogConfig#LOG_LEVEL} and {@link LocalLogConfig#LOG_LEVEL} for some tags or
+ * packages. Turn on debug output of one subsystem as follows:
+ * <pre>
+ *     LogLevelOverrides.setTagLevel("db", LogLevel.DEBUG);             // tags "db" and "db.pool"
+ *     LogLevelOverrides.setPackageLevel("com.example.cache", LogLevel.DEBUG);
+ *     LogLevelOverrides.setPackageLevel("com.example.cache.noisy", LogLevel.ERROR);
+ * </pre>
+ * A tag override applies to the tag and to every tag below it, with {@code .} as separator, and wins over a
+ * package override. A package override applies to classes of the package and its sub packages. The most
+ * specific override wins.
+ *
+ * <p>
+ * Package overrides need the caller class, so an event whose level only a package override can decide walks
+ * the stack. Every other event is decided from the tag alone.
+ *
+ * @implSpec The overrides are an immutable snapshot, replaced with a volatile write on every change. The level
+ * of each tag and class is resolved once and cached in the snapshot, so a change also drops every cached
+ * level at once.
+ */
+public final class LogLevelOverrides {
+    private static final int MAX_CACHED = 4096;
+    private static final Object NONE = new Object();
+    private static final Snapshot EMPTY = new Snapshot(new HashMap<>(), new HashMap<>());
+    private static volatile Snapshot current = EMPTY;
+
+    private LogLevelOverrides() {
+    }
+
+    /**
+     * Set the level of a tag and of the tags below it
+     *
+     * @param tag   {@link String}
+     * @param level {@link LogLevel} nullable to remove the override
+     */
+    public static synchronized void setTagLevel(String tag, LogLevel level) {
+        if (tag == null) throw new NullPointerException("tag");
+        Map<String, LogLevel> tags = new HashMap<>(current.tags);
+        if (level != null) tags.put(tag, level);
+        else tags.remove(tag);
+        update(tags, current.packages);
+    }
+
+    /**
+     * Set the level of the classes of a package and of its sub packages
+     *
+     * @param packageName {@link String}, or the name of a class
+     * @param level       {@link LogLevel} nullable to remove the override
+     */
+    public static synchronized void setPackageLevel(String packageName, LogLevel level) {
+        if (packageName == null) throw new NullPointerException("packageName");
+        Map<String, LogLevel> packages = new HashMap<>(current.packages);
+        if (level != null) packages.put(packageName, level);
+        else packages.remove(packageName);
+        update(current.tags, packages);
+    }
+
+    /**
+     * Remove every override
+     */
+    public static synchronized void clear() {
+        current = EMPTY;
+    }
+
+    private static void update(Map<String, LogLevel> tags, Map<String, LogLevel> packages) {
+        current = tags.isEmpty() && packages.isEmpty() ? EMPTY : new Snapshot(tags, packages);
+    }
+
+    /**
+     * Check if an event passes the overrides, or the configured level if none applies
+     *
+     * @param tag   {@link String} nullable
+     * @param level {@link LogLevel}
+     * @param min   configured {@link LogLevel}
+     * @return boolean
+     */
+    static boolean isEnabled(String tag, LogLevel level, LogLevel min) {
+        Snapshot snapshot = current;
+        if (snapshot == EMPTY) return level.value >= min.value;
+        if (tag != null && !snapshot.tags.isEmpty()) {
+            LogLevel override = snapshot.tagLevel(tag);
+            if (override != null) return level.value >= override.value;
+        }
+        if (snapshot.packages.isEmpty()) return level.value >= min.value;
+        // only walk the stack if a package override could change the outcome
+        if (level.value >= Math.max(min.value, snapshot.maxPackageLevel)) return true;
+        if (level.value < Math.min(min.value, snapshot.minPackageLevel)) return false;
+        CallSite site = CallerLocator.locate();
+        LogLevel override = site != null ? snapshot.packageLevel(site.className) : null;
+        return level.value >= (override != null ? override : min).value;
+    }
+
+    private static final class Snapshot {
+        final Map<String, LogLevel> tags;
+        final Map<String, LogLevel> packages;
+        final int minPackageLevel;
+        final int maxPackageLevel;
+        private final ConcurrentHashMap<String, Object> tagCache = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Object> packageCache = new ConcurrentHashMap<>();
+
+        Snapshot(Map<String, LogLevel> tags, Map<String, LogLevel> packages) {
+            this.tags = tags;
+            this.packages = packages;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (LogLevel level : packages.values()) {
+                min = Math.min(min, level.value);
+                max = Math.max(max, level.value);
+            }
+            minPackageLevel = min;
+            maxPackageLevel = max;
+        }
+
+        LogLevel tagLevel(String tag) {
+            return cached(tagCache, tag, tags, '.');
+        }
+
+        LogLevel packageLevel(String className) {
+            return cached(packageCache, className, packages, '$');
+        }
+
+        /**
+         * Find the override of a name or of its closest parent, caching the result
+         *
+         * @param cache     resolved names
+         * @param name      {@link String}
+         * @param overrides {@link Map} of overrides
+         * @param inner     separator that also ends a parent name besides {@code .}
+         * @return {@link LogLevel}, or null if there is no override
+         */
+        private static LogLevel cached(ConcurrentHashMap<String, Object> cache, String name, Map<String, LogLevel> overrides, char inner) {
+            Object level = cache.get(name);
+            if (level == null) {
+                level = NONE;
+                for (int end = name.length(); end > 0; end = lastSeparator(name, end, inner)) {
+                    LogLevel override = overrides.get(end == name.length() ? name : name.substring(0, end));
+                    if (override != null) {
+                        level = override;
+                        break;
+                    }
+                }
+                if (cache.size() >= MAX_CACHED) cache.clear();
+                cache.put(name, level);
+            }
+            return level != NONE ? (LogLevel) level : null;
+        }
+
+        private static int lastSeparator(String name, int end, char inner) {
+            for (int i = end - 1; i > 0; i--) {
+                char c = name.charAt(i);
+                if (c == '.' || c == inner) return i;
+            }
+            return 0;
+        }
+    }
+}
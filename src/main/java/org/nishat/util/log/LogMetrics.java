@@ -0,0 +1,476 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the logger itself, collected while {@link GlobalLogConfig#METRICS} is true. Check them, or
+ * publish them to JMX, as follows:
+ * <pre>
+ *     GlobalLogConfig.METRICS = true;
+ *     LogMetrics.registerMBean();
+ *     long p99 = LogMetrics.latency().percentile(99);
+ * </pre>
+ * Latency is the time a log call spends on the calling thread, from the level check until the event is
+ * written or queued. Filtered, sampled out, suppressed and failed calls are counted but not timed.
+ *
+ * @implSpec This class is thread-safe. Counters are {@link LongAdder}s and latencies are recorded in a
+ * striped histogram, so recording never blocks and threads rarely write the same cache line.
+ */
+public final class LogMetrics {
+    /**
+     * {@link ObjectName} that {@link #registerMBean()} uses
+     */
+    public static final String OBJECT_NAME = "org.nishat.util.log:type=LogMetrics";
+
+    private static final LongAdder[] EVENTS = new LongAdder[LogLevel.FATAL.value + 1];
+    private static final LongAdder FILTERED = new LongAdder();
+    private static final LongAdder SAMPLED = new LongAdder();
+    private static final LongAdder SUPPRESSED = new LongAdder();
+    private static final LongAdder DROPPED = new LongAdder();
+    private static final LongAdder ERRORS = new LongAdder();
+    private static final LongAdder CHARS = new LongAdder();
+    private static final LongAdder BYTES = new LongAdder();
+    private static final LongAdder FLUSHES = new LongAdder();
+    private static final Recorder LATENCY = new Recorder();
+
+    static {
+        for (int i = 0; i < EVENTS.length; i++) EVENTS[i] = new LongAdder();
+    }
+
+    private LogMetrics() {
+    }
+
+    /**
+     * Number of events logged at a level, whether they were written, queued or dropped afterwards
+     *
+     * @param level {@link LogLevel} nullable for raw events
+     * @return long
+     */
+    public static long events(LogLevel level) {
+        return EVENTS[level != null ? level.value : 0].sum();
+    }
+
+    /**
+     * Number of events logged at every level, raw events included
+     *
+     * @return long
+     */
+    public static long events() {
+        long sum = 0;
+        for (LongAdder events : EVENTS) sum += events.sum();
+        return sum;
+    }
+
+    /**
+     * Number of calls below the enabled level, see {@link Log#isEnabled(String, LogLevel, LocalLogConfig)}
+     *
+     * @return long
+     */
+    public static long filtered() {
+        return FILTERED.sum();
+    }
+
+    /**
+     * Number of enabled events dropped by a {@link LogSampler}
+     *
+     * @return long
+     */
+    public static long sampled() {
+        return SAMPLED.sum();
+    }
+
+    /**
+     * Number of events suppressed by a {@link RateLimit}
+     *
+     * @return long
+     */
+    public static long suppressed() {
+        return SUPPRESSED.sum();
+    }
+
+    /**
+     * Number of events discarded by an {@link AsyncOverflowPolicy} because the asynchronous buffer was full
+     *
+     * @return long
+     */
+    public static long dropped() {
+        return DROPPED.sum();
+    }
+
+    /**
+     * Number of failed writes and flushes
+     *
+     * @return long
+     */
+    public static long errors() {
+        return ERRORS.sum();
+    }
+
+    /**
+     * Number of chars handed to text writers
+     *
+     * @return long
+     */
+    public static long charsWritten() {
+        return CHARS.sum();
+    }
+
+    /**
+     * Number of bytes handed to the streams of {@link BinaryLogWriter}s
+     *
+     * @return long
+     */
+    public static long bytesWritten() {
+        return BYTES.sum();
+    }
+
+    /**
+     * Number of writer flushes
+     *
+     * @return long
+     */
+    public static long flushes() {
+        return FLUSHES.sum();
+    }
+
+    /**
+     * Snapshot of the time log calls spent on the calling thread
+     *
+     * @return {@link Latency}
+     */
+    public static Latency latency() {
+        return LATENCY.snapshot();
+    }
+
+    /**
+     * Set every counter and the latency histogram back to zero. Events recorded while resetting may be kept.
+     */
+    public static void reset() {
+        for (LongAdder events : EVENTS) events.reset();
+        FILTERED.reset();
+        SAMPLED.reset();
+        SUPPRESSED.reset();
+        DROPPED.reset();
+        ERRORS.reset();
+        CHARS.reset();
+        BYTES.reset();
+        FLUSHES.reset();
+        LATENCY.reset();
+    }
+
+    /**
+     * Publish the metrics to the platform MBean server as {@value #OBJECT_NAME}. Registering twice does nothing.
+     *
+     * @return false if the MBean could not be registered, in which case the failure is reported to
+     * {@link DebugManager}
+     */
+    public static boolean registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+            return true;
+        } catch (InstanceAlreadyExistsException e) {
+            return true;
+        } catch (JMException | SecurityException e) {
+            DebugManager.getInstance().print(e);
+            return false;
+        }
+    }
+
+    /**
+     * Remove the MBean that {@link #registerMBean()} published, if any
+     */
+    public static void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException ignored) {
+        } catch (JMException | SecurityException e) {
+            DebugManager.getInstance().print(e);
+        }
+    }
+
+    static void event(LogLevel level) {
+        EVENTS[level != null ? level.value : 0].increment();
+    }
+
+    static void filtered(int count) {
+        FILTERED.add(count);
+    }
+
+    static void sampled(int count) {
+        SAMPLED.add(count);
+    }
+
+    static void suppressed(int count) {
+        SUPPRESSED.add(count);
+    }
+
+    static void dropped(int count) {
+        DROPPED.add(count);
+    }
+
+    static void error() {
+        ERRORS.increment();
+    }
+
+    static void chars(int count) {
+        CHARS.add(count);
+    }
+
+    static void bytes(int count) {
+        BYTES.add(count);
+    }
+
+    static void flushed() {
+        FLUSHES.increment();
+    }
+
+    static void latency(long nanos) {
+        LATENCY.record(nanos);
+    }
+
+    /**
+     * Snapshot of a latency histogram. Values are in nanoseconds and exact up to 8 nanoseconds; above that a
+     * value is reported as the upper bound of its bucket, at most 12.5% above the recorded value.
+     */
+    public static final class Latency {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Latency(long[] counts, long total, long max) {
+            long count = 0;
+            for (long c : counts) count += c;
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        /**
+         * Number of recorded calls
+         *
+         * @return long
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Mean time of a call in nanoseconds, or 0 if nothing was recorded
+         *
+         * @return double
+         */
+        public double mean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        /**
+         * Longest call in nanoseconds, exact
+         *
+         * @return long
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Time in nanoseconds that a percentage of calls did not exceed, such as {@code percentile(99.9)}
+         *
+         * @param percent between 0 and 100
+         * @return long, or 0 if nothing was recorded
+         */
+        public long percentile(double percent) {
+            if (!(percent >= 0 && percent <= 100)) throw new IllegalArgumentException("percent must be between 0 and 100: " + percent);
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(count * percent / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(Recorder.upperBound(i), max);
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + (long) mean() + "ns, p50=" + percentile(50) + "ns, p99="
+                    + percentile(99) + "ns, p99.9=" + percentile(99.9) + "ns, max=" + max + "ns";
+        }
+    }
+
+    /**
+     * Log-linear histogram: every power of two is split into {@value #SUB_BUCKETS} buckets, as in HdrHistogram.
+     * Each thread records into one of several stripes, picked by its id.
+     */
+    private static final class Recorder {
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+        private final int stripeMask;
+        private final AtomicLongArray counts;
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Recorder() {
+            int stripes = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+            stripeMask = stripes - 1;
+            counts = new AtomicLongArray(stripes * BUCKETS);
+        }
+
+        static int bucket(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long width = 1L << (exponent - SUB_BITS);
+            return (SUB_BUCKETS + bucket % SUB_BUCKETS) * width + width - 1;
+        }
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            int stripe = (int) Thread.currentThread().getId() & stripeMask;
+            counts.incrementAndGet(stripe * BUCKETS + bucket(nanos));
+            total.add(nanos);
+            max.accumulate(nanos);
+        }
+
+        Latency snapshot() {
+            long[] merged = new long[BUCKETS];
+            for (int i = 0; i < counts.length(); i++) merged[i % BUCKETS] += counts.get(i);
+            return new Latency(merged, total.sum(), max.get());
+        }
+
+        void reset() {
+            for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+            total.reset();
+            max.reset();
+        }
+    }
+
+    private static final class Bean implements LogMetricsMXBean {
+        @Override
+        public long getEvents() {
+            return events();
+        }
+
+        @Override
+        public Map<String, Long> getEventsPerLevel() {
+            Map<String, Long> events = new LinkedHashMap<>();
+            events.put("RAW", events(null));
+            for (LogLevel level : LogLevel.values()) events.put(level.name(), events(level));
+            return events;
+        }
+
+        @Override
+        public long getFilteredEvents() {
+            return filtered();
+        }
+
+        @Override
+        public long getSampledEvents() {
+            return sampled();
+        }
+
+        @Override
+        public long getSuppressedEvents() {
+            return suppressed();
+        }
+
+        @Override
+        public long getDroppedEvents() {
+            return dropped();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors();
+        }
+
+        @Override
+        public long getCharsWritten() {
+            return charsWritten();
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return bytesWritten();
+        }
+
+        @Override
+        public long getFlushes() {
+            return flushes();
+        }
+
+        @Override
+        public long getLatencyCount() {
+            return latency().count();
+        }
+
+        @Override
+        public double getLatencyMeanNanos() {
+            return latency().mean();
+        }
+
+        @Override
+        public long getLatencyP50Nanos() {
+            return latency().percentile(50);
+        }
+
+        @Override
+        public long getLatencyP99Nanos() {
+            return latency().percentile(99);
+        }
+
+        @Override
+        public long getLatencyP999Nanos() {
+            return latency().percentile(99.9);
+        }
+
+        @Override
+        public long getLatencyMaxNanos() {
+            return latency().max();
+        }
+
+        @Override
+        public void reset() {
+            LogMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link LogMetrics}, published by {@link LogMetrics#registerMBean()}
+ */
+public interface LogMetricsMXBean {
+    /**
+     * @return {@link LogMetrics#events()}
+     */
+    long getEvents();
+
+    /**
+     * @return {@link LogMetrics#events(LogLevel)} by level name, with raw events under {@code RAW}
+     */
+    Map<String, Long> getEventsPerLevel();
+
+    /**
+     * @return {@link LogMetrics#filtered()}
+     */
+    long getFilteredEvents();
+
+    /**
+     * @return {@link LogMetrics#sampled()}
+     */
+    long getSampledEvents();
+
+    /**
+     * @return {@link LogMetrics#suppressed()}
+     */
+    long getSuppressedEvents();
+
+    /**
+     * @return {@link LogMetrics#dropped()}
+     */
+    long getDroppedEvents();
+
+    /**
+     * @return {@link LogMetrics#errors()}
+     */
+    long getErrors();
+
+    /**
+     * @return {@link LogMetrics#charsWritten()}
+     */
+    long getCharsWritten();
+
+    /**
+     * @return {@link LogMetrics#bytesWritten()}
+     */
+    long getBytesWritten();
+
+    /**
+     * @return {@link LogMetrics#flushes()}
+     */
+    long getFlushes();
+
+    /**
+     * @return {@link LogMetrics.Latency#count()}
+     */
+    long getLatencyCount();
+
+    /**
+     * @return {@link LogMetrics.Latency#mean()}
+     */
+    double getLatencyMeanNanos();
+
+    /**
+     * @return median latency in nanoseconds
+     */
+    long getLatencyP50Nanos();
+
+    /**
+     * @return 99th percentile latency in nanoseconds
+     */
+    long getLatencyP99Nanos();
+
+    /**
+     * @return 99.9th percentile latency in nanoseconds
+     */
+    long getLatencyP999Nanos();
+
+    /**
+     * @return {@link LogMetrics.Latency#max()}
+     */
+    long getLatencyMaxNanos();
+
+    /**
+     * Same as {@link LogMetrics#reset()}
+     */
+    void reset();
+}
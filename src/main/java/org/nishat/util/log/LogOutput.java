@@ -0,0 +1,215 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link Writer} together with the state its {@link FlushPolicy} needs: events and chars written since the
+ * last flush. There is one instance per writer, shared by every config that writes to it.
+ *
+ * @implSpec Every line is handed to the writer in a single call while holding {@link #lock}, so lines never
+ * interleave even if the writer is not thread-safe. A thread that finds the lock taken does not wait for it:
+ * it queues a copy of its line and returns, and the thread holding the lock writes the queued lines before it
+ * lets go. Lines of one thread keep their order. Threads wait for the lock when {@value #MAX_PENDING} lines are
+ * already queued, and for lines their {@link FlushPolicy} flushes immediately, so such a line is written and
+ * flushed, or its failure reported, before the log call returns.
+ */
+final class LogOutput {
+    private static final int MAX_PENDING = 1024;
+    private static final Map<Writer, WeakReference<LogOutput>> OUTPUTS = new WeakHashMap<>();
+
+    final Writer writer;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<PendingLine> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private int pendingEvents;
+    private long pendingBytes;
+    private ScheduledFuture<?> intervalFlush;
+    private boolean hooked;
+
+    private LogOutput(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Get the output of a writer
+     *
+     * @param writer {@link Writer}
+     * @return {@link LogOutput}
+     */
+    static LogOutput of(Writer writer) {
+        synchronized (OUTPUTS) {
+            WeakReference<LogOutput> reference = OUTPUTS.get(writer);
+            LogOutput output = reference != null ? reference.get() : null;
+            if (output == null) {
+                output = new LogOutput(writer);
+                OUTPUTS.put(writer, new WeakReference<>(output));
+            }
+            return output;
+        }
+    }
+
+    /**
+     * Flush every output that has pending events
+     */
+    static void flushAll() {
+        List<LogOutput> outputs = new ArrayList<>();
+        synchronized (OUTPUTS) {
+            for (WeakReference<LogOutput> reference : OUTPUTS.values()) {
+                LogOutput output = reference.get();
+                if (output != null) outputs.add(output);
+            }
+        }
+        for (LogOutput output : outputs) output.flushPending();
+    }
+
+    /**
+     * Write a rendered event
+     *
+     * @param chars  rendered event
+     * @param length number of chars to write
+     * @param level  {@link LogLevel} of the event, nullable
+     * @param policy {@link FlushPolicy}
+     * @param flush  whether to flush right away when the policy asks for it
+     * @return true if the policy asks for a flush that was not done yet
+     * @throws IOException if the writer fails
+     */
+    boolean write(char[] chars, int length, LogLevel level, FlushPolicy policy, boolean flush) throws IOException {
+        boolean due = false;
+        if (lock.tryLock() || (policy.isImmediate(level) || pendingCount.get() >= MAX_PENDING) && waitForLock()) {
+            try {
+                drainLocked();
+                due = writeLocked(chars, length, level, policy, flush);
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            pending.add(new PendingLine(Arrays.copyOf(chars, length), level, policy));
+            pendingCount.incrementAndGet();
+        }
+        while (!pending.isEmpty() && lock.tryLock()) {
+            try {
+                drainLocked();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return due;
+    }
+
+    private boolean waitForLock() {
+        lock.lock();
+        return true;
+    }
+
+    private boolean writeLocked(char[] chars, int length, LogLevel level, FlushPolicy policy, boolean flush) throws IOException {
+        if (policy != FlushPolicy.EVERY_EVENT) {
+            if (!hooked) hooked = Log.installShutdownHook();
+            if (policy.intervalMillis > 0 && intervalFlush == null) scheduleFlush(policy.intervalMillis);
+        }
+        writer.write(chars, 0, length);
+        if (GlobalLogConfig.METRICS) LogMetrics.chars(length);
+        pendingEvents++;
+        pendingBytes += length;
+        if (!policy.isDue(pendingEvents, pendingBytes, level)) return false;
+        if (!flush) return true;
+        flushLocked();
+        return false;
+    }
+
+    /**
+     * Write the lines other threads queued while this thread held the lock.
+     */
+    private void drainLocked() {
+        PendingLine line;
+        while ((line = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            try {
+                writeLocked(line.chars, line.chars.length, line.level, line.policy, true);
+            } catch (IOException e) {
+                Log.failed(e);
+            }
+        }
+    }
+
+    /**
+     * Flush the writer, reporting failures to {@link DebugManager}
+     */
+    void flush() {
+        lock.lock();
+        try {
+            drainLocked();
+            flushLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        pendingEvents = 0;
+        pendingBytes = 0;
+        Log.flush(writer);
+    }
+
+    private void flushPending() {
+        lock.lock();
+        try {
+            drainLocked();
+            if (pendingEvents > 0) flushLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scheduleFlush(long intervalMillis) {
+        WeakReference<LogOutput> self = new WeakReference<>(this);
+        ScheduledFuture<?>[] future = new ScheduledFuture<?>[1];
+        future[0] = LogScheduler.schedule(() -> {
+            LogOutput output = self.get();
+            if (output != null) output.flushPending();
+            else future[0].cancel(false);
+        }, intervalMillis);
+        intervalFlush = future[0];
+    }
+
+    private static final class PendingLine {
+        final char[] chars;
+        final LogLevel level;
+        final FlushPolicy policy;
+
+        PendingLine(char[] chars, LogLevel level, FlushPolicy policy) {
+            this.chars = chars;
+            this.level = level;
+            this.policy = policy;
+        }
+    }
+}
@@ -29,7 +29,9 @@ public enum LogProperties {
     INDEX(UUID.randomUUID()),
     VALUE(UUID.randomUUID()),
     LEVEL(UUID.randomUUID()),
-    LINE(UUID.randomUUID());
+    LINE(UUID.randomUUID()),
+    THREAD(UUID.randomUUID()),
+    SAMPLE_RATE(UUID.randomUUID());
 
     final UUID id;
     LogProperties(UUID id) {
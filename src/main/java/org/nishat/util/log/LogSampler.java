@@ -0,0 +1,211 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps a share of the enabled events of some levels and tags, and drops the rest before the caller location
+ * is captured or the message is formatted. Keep 1% of {@link LogLevel#TRACE} events of tag {@code db} and every
+ * 1000th {@link LogLevel#INFO} event of tag {@code http} as follows:
+ * <pre>
+ *     GlobalLogConfig.SAMPLER = LogSampler.probability(LogLevel.TRACE, "db", 0.01)
+ *             .withEveryNth(LogLevel.INFO, "http", 1000);
+ * </pre>
+ * A rule of a tag also applies to the tags below it, with {@code .} as separator. A null level or tag matches
+ * every level or tag. The rule of the most specific tag wins, and a rule of the exact level wins over one for
+ * every level. Raw events are never sampled.
+ *
+ * <p>
+ * An event kept by a rule carries its sample rate, the number of events it stands for, so counts can be scaled
+ * back up: {@link LogProperties#SAMPLE_RATE} in text formats and {@code sample_rate} in {@link LogEncoder#JSON}
+ * and {@link LogEncoder#LOGFMT}.
+ *
+ * @implSpec Probabilities are drawn from {@link ThreadLocalRandom}. Every-Nth rules count in per-thread
+ * stripes, so each stripe keeps every Nth of its own events and threads do not contend on one counter. Each
+ * stripe starts at a random offset, so threads that log fewer than N events are kept with a chance of one in
+ * N instead of always, and scaled counts stay unbiased. The rule of each tag is resolved once and cached. The
+ * configured rules are immutable, while their counters are atomic; instances are thread-safe.
+ */
+public final class LogSampler {
+    private static final int MAX_CACHED = 4096;
+    private static final int LEVELS = LogLevel.FATAL.value + 1;
+
+    private final Map<String, Rule[]> byTag;
+    private final Rule[] anyTag;
+    private final ConcurrentHashMap<String, Rule[]> cache = new ConcurrentHashMap<>();
+
+    private LogSampler(Map<String, Rule[]> byTag, Rule[] anyTag) {
+        this.byTag = byTag;
+        this.anyTag = anyTag;
+    }
+
+    /**
+     * Keep events with a probability
+     *
+     * @param level {@link LogLevel} nullable for every level
+     * @param tag   {@link String} nullable for every tag
+     * @param keep  probability between 0 and 1
+     * @return {@link LogSampler}
+     */
+    public static LogSampler probability(LogLevel level, String tag, double keep) {
+        return new LogSampler(new HashMap<>(), new Rule[LEVELS]).withProbability(level, tag, keep);
+    }
+
+    /**
+     * Keep every Nth event
+     *
+     * @param level {@link LogLevel} nullable for every level
+     * @param tag   {@link String} nullable for every tag
+     * @param n     keep one event out of n
+     * @return {@link LogSampler}
+     */
+    public static LogSampler everyNth(LogLevel level, String tag, long n) {
+        return new LogSampler(new HashMap<>(), new Rule[LEVELS]).withEveryNth(level, tag, n);
+    }
+
+    /**
+     * Also keep events of a level and tag with a probability, replacing any rule of the same level and tag
+     *
+     * @param level {@link LogLevel} nullable for every level
+     * @param tag   {@link String} nullable for every tag
+     * @param keep  probability between 0 and 1
+     * @return {@link LogSampler}
+     */
+    public LogSampler withProbability(LogLevel level, String tag, double keep) {
+        if (!(keep >= 0 && keep <= 1)) throw new IllegalArgumentException("keep must be between 0 and 1: " + keep);
+        return with(level, tag, new Rule(keep, 0));
+    }
+
+    /**
+     * Also keep every Nth event of a level and tag, replacing any rule of the same level and tag
+     *
+     * @param level {@link LogLevel} nullable for every level
+     * @param tag   {@link String} nullable for every tag
+     * @param n     keep one event out of n
+     * @return {@link LogSampler}
+     */
+    public LogSampler withEveryNth(LogLevel level, String tag, long n) {
+        if (n < 1) throw new IllegalArgumentException("n must be positive: " + n);
+        return with(level, tag, new Rule(0, n));
+    }
+
+    private LogSampler with(LogLevel level, String tag, Rule rule) {
+        Map<String, Rule[]> tags = new HashMap<>(byTag);
+        Rule[] any = anyTag;
+        if (tag == null) {
+            any = any.clone();
+            any[level != null ? level.value : 0] = rule;
+        } else {
+            Rule[] rules = tags.get(tag);
+            rules = rules != null ? rules.clone() : new Rule[LEVELS];
+            rules[level != null ? level.value : 0] = rule;
+            tags.put(tag, rules);
+        }
+        return new LogSampler(tags, any);
+    }
+
+    /**
+     * Decide if an enabled event is kept
+     *
+     * @param tag   {@link String} nullable
+     * @param level {@link LogLevel}
+     * @return 0 if the event is dropped, otherwise the number of events it stands for, 1 if it is not sampled
+     */
+    double sample(String tag, LogLevel level) {
+        Rule[] rules = tag != null ? rules(tag) : anyTag;
+        Rule rule = rules[level.value];
+        if (rule == null) rule = rules[0];
+        return rule != null ? rule.sample() : 1;
+    }
+
+    /**
+     * Rules of a tag for every level, inherited from its closest parents and from the rules of every tag
+     */
+    private Rule[] rules(String tag) {
+        Rule[] rules = cache.get(tag);
+        if (rules != null) return rules;
+        rules = new Rule[LEVELS];
+        boolean[] decided = new boolean[LEVELS];
+        for (int end = tag.length(); end > 0; end = tag.lastIndexOf('.', end - 1)) {
+            inherit(rules, decided, byTag.get(end == tag.length() ? tag : tag.substring(0, end)));
+        }
+        inherit(rules, decided, anyTag);
+        if (cache.size() >= MAX_CACHED) cache.clear();
+        cache.put(tag, rules);
+        return rules;
+    }
+
+    private static void inherit(Rule[] rules, boolean[] decided, Rule[] from) {
+        if (from == null) return;
+        for (int level = 1; level < LEVELS; level++) {
+            if (decided[level]) continue;
+            Rule rule = from[level] != null ? from[level] : from[0];
+            if (rule != null) {
+                rules[level] = rule;
+                decided[level] = true;
+            }
+        }
+    }
+
+    /**
+     * Append a sample rate as a plain number
+     *
+     * @param out  {@link StringBuilder}
+     * @param rate number of events an event stands for
+     */
+    static void appendRate(StringBuilder out, double rate) {
+        if (rate == (long) rate) out.append((long) rate);
+        else out.append(rate);
+    }
+
+    private static final class Rule {
+        private static final int PADDING = 16;
+        private static final int STRIPES = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+
+        final double keep;
+        final long n;
+        final double rate;
+        private final AtomicLongArray counts;
+
+        Rule(double keep, long n) {
+            this.keep = keep;
+            this.n = n;
+            this.rate = n > 0 ? n : keep > 0 ? 1 / keep : 0;
+            this.counts = n > 1 ? new AtomicLongArray(STRIPES * PADDING) : null;
+            for (int stripe = 0; counts != null && stripe < STRIPES; stripe++) {
+                counts.set(stripe * PADDING, ThreadLocalRandom.current().nextLong(n));
+            }
+        }
+
+        double sample() {
+            if (counts != null) {
+                int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+                return counts.getAndIncrement(stripe * PADDING) % n == 0 ? rate : 0;
+            }
+            if (n == 1 || keep >= 1) return 1;
+            return keep > 0 && ThreadLocalRandom.current().nextDouble() < keep ? rate : 0;
+        }
+    }
+}
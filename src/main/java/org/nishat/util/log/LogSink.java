@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+/**
+ * One output of {@link GlobalLogConfig#SINKS}. Every setting of {@link LocalLogConfig} applies to the sink
+ * alone, so one event can be written to several outputs with different levels and shapes, as follows:
+ * <pre>
+ *     LogSink console = new LogSink();
+ *     console.LOG_LEVEL = LogLevel.INFO;
+ *     console.LOG_COLOR = true;
+ *     LogSink json = new LogSink();
+ *     json.WRITER = new FileWriter("app.json");
+ *     json.LOG_LEVEL = LogLevel.DEBUG;
+ *     json.ENCODER = LogEncoder.JSON;
+ *     json.ASYNC = true;
+ *     GlobalLogConfig.SINKS = Arrays.asList(console, json);
+ * </pre>
+ * The event is captured once, including its caller location if any sink needs it, and rendered once for all
+ * synchronous sinks that share the same encoder, format, style and timestamp format.
+ *
+ * <p>
+ * {@link GlobalLogConfig#SAMPLER}, {@link GlobalLogConfig#RATE_LIMIT} and {@link GlobalLogConfig#CLOCK} apply
+ * to the event before it reaches the sinks. The {@link LocalLogConfig#SAMPLER} and
+ * {@link LocalLogConfig#RATE_LIMIT} of a sink are therefore ignored; use {@link #LOG_LEVEL} to write fewer
+ * events to one sink.
+ */
+public class LogSink extends LocalLogConfig {
+    /**
+     * Write the events of this sink from its own background thread, so a slow sink does not hold back the
+     * others or the caller. The queue follows the {@code ASYNC_*} settings of {@link GlobalLogConfig}. Default
+     * value is null, which uses {@link GlobalLogConfig#ASYNC}
+     */
+    public Boolean ASYNC;
+
+    /**
+     * Queue of this sink once it is asynchronous
+     */
+    volatile AsyncLogQueue queue;
+
+    /**
+     * Check if the events of this sink are written from its own background thread
+     *
+     * @return boolean
+     */
+    boolean isAsync() {
+        Boolean async = ASYNC;
+        return async != null ? async : GlobalLogConfig.ASYNC;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A tag logged from one source location. Sites are interned, so repeated events from the same place share one
+ * instance that caches the rendered text of its tag and location.
+ */
+final class LogSite {
+    private static final int MAX_SITES = 65536;
+    private static final int MAX_FRAGMENTS = 8;
+    private static final Fragments[] NO_FRAGMENTS = new Fragments[0];
+    private static final ConcurrentHashMap<String, LogSite> BY_TAG = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Key, LogSite> BY_LOCATION = new ConcurrentHashMap<>();
+    private static final AtomicInteger CREATED = new AtomicInteger();
+
+    final String tag;
+    /**
+     * Source location, or null if the location of the events is not captured
+     */
+    final CallSite site;
+    /**
+     * State of each {@link RateLimit} that limits this site, see {@link RateLimiter}
+     */
+    volatile RateLimiter[] limiters = RateLimiter.NONE;
+    /**
+     * Rendered text per template and style, since sinks and local configs may each use their own. Copy on
+     * write; once {@value #MAX_FRAGMENTS} are cached, the oldest is dropped.
+     */
+    private volatile Fragments[] fragments = NO_FRAGMENTS;
+
+    private LogSite(String tag, CallSite site) {
+        CREATED.incrementAndGet();
+        this.tag = tag;
+        this.site = site;
+    }
+
+    /**
+     * Get the interned site of a tag and location. Once {@value #MAX_SITES} sites exist, new ones are no
+     * longer interned, so tags built from unbounded data cannot grow the registry forever.
+     *
+     * @param tag  {@link String}
+     * @param site {@link CallSite} nullable
+     * @return {@link LogSite}, or null if the registry is full
+     */
+    static LogSite of(String tag, CallSite site) {
+        if (tag == null) return null;
+        if (site == null) {
+            LogSite logSite = BY_TAG.get(tag);
+            if (logSite != null || CREATED.get() >= MAX_SITES) return logSite;
+            return BY_TAG.computeIfAbsent(tag, t -> new LogSite(t, null));
+        }
+        LogSite logSite = site.logSite;
+        if (logSite != null && (logSite.tag == tag || logSite.tag.equals(tag))) return logSite;
+        Key key = new Key(tag, site);
+        logSite = BY_LOCATION.get(key);
+        if (logSite == null) {
+            if (CREATED.get() >= MAX_SITES) return null;
+            logSite = BY_LOCATION.computeIfAbsent(key, k -> new LogSite(k.tag, site));
+        }
+        site.logSite = logSite;
+        return logSite;
+    }
+
+    /**
+     * Get the text of this site for each segment of a template, see {@link FormatTemplate#renderSite}.
+     *
+     * @param template {@link FormatTemplate}
+     * @param style    {@link LogStyle}
+     * @return rendered segments
+     */
+    char[][] fragments(FormatTemplate template, LogStyle style) {
+        Fragments[] cached = fragments;
+        for (Fragments f : cached) {
+            if (f.template == template && f.style == style) return f.segments;
+        }
+        Fragments f = new Fragments(template, style, template.renderSite(this, style));
+        Fragments[] grown;
+        if (cached.length < MAX_FRAGMENTS) {
+            grown = Arrays.copyOf(cached, cached.length + 1);
+        } else {
+            grown = new Fragments[MAX_FRAGMENTS];
+            System.arraycopy(cached, 1, grown, 0, MAX_FRAGMENTS - 1);
+        }
+        grown[grown.length - 1] = f;
+        fragments = grown;
+        return f.segments;
+    }
+
+    private static final class Fragments {
+        final FormatTemplate template;
+        final LogStyle style;
+        final char[][] segments;
+
+        Fragments(FormatTemplate template, LogStyle style, char[][] segments) {
+            this.template = template;
+            this.style = style;
+            this.segments = segments;
+        }
+    }
+
+    private static final class Key {
+        final String tag;
+        final String className;
+        final String fileName;
+        final int lineNumber;
+
+        Key(String tag, CallSite site) {
+            this.tag = tag;
+            this.className = site.className;
+            this.fileName = site.fileName;
+            this.lineNumber = site.lineNumber;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return lineNumber == key.lineNumber && tag.equals(key.tag) && className.equals(key.className)
+                    && Objects.equals(fileName, key.fileName);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((tag.hashCode() * 31 + className.hashCode()) * 31 + Objects.hashCode(fileName)) * 31 + lineNumber;
+        }
+    }
+}
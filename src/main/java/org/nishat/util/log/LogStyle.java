@@ -0,0 +1,160 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+/**
+ * How level names, and the tags of raw events, are decorated. {@link #ANSI} colors them with ANSI escape
+ * codes and {@link #PLAIN} leaves them as they are. A custom style only has to provide the text around each
+ * level, as follows:
+ * <pre>
+ *     GlobalLogConfig.LOG_STYLE = new LogStyle() {
+ *         protected String prefix(LogLevel level) { return level == LogLevel.FATAL ? "\u001B[1;31m" : ""; }
+ *         protected String suffix(LogLevel level) { return level == LogLevel.FATAL ? "\u001B[0m" : ""; }
+ *     };
+ * </pre>
+ * The decorated level names are built once per style, so a log call only copies them.
+ */
+public abstract class LogStyle {
+    /**
+     * No decoration
+     */
+    public static final LogStyle PLAIN = new LogStyle() {
+        @Override
+        protected String prefix(LogLevel level) {
+            return "";
+        }
+
+        @Override
+        protected String suffix(LogLevel level) {
+            return "";
+        }
+    };
+
+    /**
+     * ANSI colors, see {@link LogLevel}
+     */
+    public static final LogStyle ANSI = new LogStyle() {
+        @Override
+        protected String prefix(LogLevel level) {
+            return Color.of(level).toString();
+        }
+
+        @Override
+        protected String suffix(LogLevel level) {
+            return Color.RESET.toString();
+        }
+    };
+
+    /**
+     * {@link #ANSI} if the JVM runs in a terminal that supports colors, otherwise {@link #PLAIN}. The
+     * {@code NO_COLOR} environment variable, or {@code TERM=dumb}, disables colors.
+     */
+    public static final LogStyle AUTO = isColorTerminal() ? ANSI : PLAIN;
+
+    private volatile Tokens tokens;
+
+    protected LogStyle() {
+    }
+
+    /**
+     * Text written before a level name or raw event tag. Called once per level.
+     *
+     * @param level {@link LogLevel}
+     * @return {@link String}
+     */
+    protected abstract String prefix(LogLevel level);
+
+    /**
+     * Text written after a level name or raw event tag. Called once per level.
+     *
+     * @param level {@link LogLevel}
+     * @return {@link String}
+     */
+    protected abstract String suffix(LogLevel level);
+
+    /**
+     * Append the decorated name of a level
+     *
+     * @param out   {@link StringBuilder}
+     * @param level {@link LogLevel}
+     */
+    final void appendLevel(StringBuilder out, LogLevel level) {
+        out.append(tokens().levels[level.ordinal()]);
+    }
+
+    /**
+     * Append text decorated like a level
+     *
+     * @param out   {@link StringBuilder}
+     * @param text  {@link String}
+     * @param level {@link LogLevel}
+     */
+    final void append(StringBuilder out, String text, LogLevel level) {
+        Tokens t = tokens();
+        out.append(t.prefixes[level.ordinal()]).append(text).append(t.suffixes[level.ordinal()]);
+    }
+
+    /**
+     * Decorate text like a level
+     *
+     * @param text  {@link String}
+     * @param level {@link LogLevel}
+     * @return {@link String}
+     */
+    final String apply(String text, LogLevel level) {
+        StringBuilder out = new StringBuilder();
+        append(out, text, level);
+        return out.toString();
+    }
+
+    private Tokens tokens() {
+        Tokens t = tokens;
+        if (t == null) tokens = t = new Tokens(this);
+        return t;
+    }
+
+    private static boolean isColorTerminal() {
+        try {
+            return System.console() != null && System.getenv("NO_COLOR") == null && !"dumb".equals(System.getenv("TERM"));
+        } catch (SecurityException e) {
+            return false;
+        }
+    }
+
+    private static final class Tokens {
+        final char[][] prefixes;
+        final char[][] suffixes;
+        final char[][] levels;
+
+        Tokens(LogStyle style) {
+            LogLevel[] values = LogLevel.values();
+            prefixes = new char[values.length][];
+            suffixes = new char[values.length][];
+            levels = new char[values.length][];
+            for (LogLevel level : values) {
+                String prefix = String.valueOf(style.prefix(level));
+                String suffix = String.valueOf(style.suffix(level));
+                prefixes[level.ordinal()] = prefix.toCharArray();
+                suffixes[level.ordinal()] = suffix.toCharArray();
+                levels[level.ordinal()] = (prefix + level.name() + suffix).toCharArray();
+            }
+        }
+    }
+}
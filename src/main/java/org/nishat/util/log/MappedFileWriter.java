@@ -0,0 +1,314 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@link Writer} that encodes chars as UTF-8 straight into a memory-mapped region of a file, so writing a
+ * line is a memory copy instead of a system call. Use it as follows:
+ * <pre>
+ *     GlobalLogConfig.WRITER = new MappedFileWriter("audit.log", 8 * 1024 * 1024, 100 * 1024 * 1024, 0, 5);
+ *     GlobalLogConfig.LOG_COLOR = false;
+ * </pre>
+ * The file is mapped in regions; the next region is mapped as soon as the current one is half full. The file
+ * rolls when it reaches a size or an age: {@code audit.log} becomes {@code audit.log.1}, older files move up,
+ * and only the configured number of old files is kept.
+ *
+ * <p>
+ * {@link #flush()} does nothing, since written data is already visible to other readers of the file. Call
+ * {@link #force()} to also write it to the storage device. {@link #close()} trims the file to the written
+ * size, and a file left with a zeroed tail by a writer that was not closed is trimmed when it is opened again.
+ *
+ * @implSpec This class is thread-safe.
+ */
+public class MappedFileWriter extends Writer {
+    /**
+     * Size of a mapped region when none is given
+     */
+    public static final int DEFAULT_REGION_SIZE = 8 * 1024 * 1024;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path file;
+    private final int regionSize;
+    private final long maxFileSize;
+    private final long rollIntervalMillis;
+    private final int retention;
+
+    private FileChannel channel;
+    private MappedByteBuffer region;
+    private MappedByteBuffer nextRegion;
+    /**
+     * Region written before {@link #region}, kept until it is forced
+     */
+    private MappedByteBuffer previousRegion;
+    private long regionStart;
+    private long rollAt;
+    private boolean closed;
+    /**
+     * Why the writer was closed by a failed roll, nullable
+     */
+    private Exception failure;
+
+    /**
+     * Append to a file that never rolls
+     *
+     * @param fileName {@link String}
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedFileWriter(String fileName) throws IOException {
+        this(fileName, DEFAULT_REGION_SIZE, 0, 0, 0);
+    }
+
+    /**
+     * Append to a rolling file
+     *
+     * @param fileName           {@link String}
+     * @param regionSize         bytes mapped at a time
+     * @param maxFileSize        roll when the file reaches this many bytes, 0 to never roll by size
+     * @param rollIntervalMillis roll when the file is this old, 0 to never roll by age
+     * @param retention          number of rolled files to keep
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedFileWriter(String fileName, int regionSize, long maxFileSize, long rollIntervalMillis, int retention) throws IOException {
+        if (regionSize < 16) throw new IllegalArgumentException("regionSize is too small: " + regionSize);
+        this.file = new File(fileName).toPath();
+        this.regionSize = regionSize;
+        this.maxFileSize = maxFileSize;
+        this.rollIntervalMillis = rollIntervalMillis;
+        this.retention = retention;
+        open();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = writtenSize(channel);
+        regionStart = size;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+        nextRegion = null;
+        previousRegion = null;
+        rollAt = rollIntervalMillis > 0 ? System.currentTimeMillis() + rollIntervalMillis : Long.MAX_VALUE;
+    }
+
+    /**
+     * Size of the data in a file, without the zeroed tail of the regions that were mapped but not written
+     * because the previous writer was not closed: the rest of the current region and the whole next region.
+     */
+    private long writtenSize(FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer chunk = ByteBuffer.allocate(4096);
+        long limit = Math.max(0, size - 2L * regionSize);
+        while (size > limit) {
+            int length = (int) Math.min(chunk.capacity(), size - limit);
+            ((Buffer) chunk).clear();
+            ((Buffer) chunk).limit(length);
+            channel.read(chunk, size - length);
+            for (int i = length - 1; i >= 0; i--) {
+                if (chunk.get(i) != 0) return size - length + i + 1;
+            }
+            size -= length;
+        }
+        return size;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        synchronized (lock) {
+            if (closed) throw closedException();
+            if (maxFileSize > 0 && position() >= maxFileSize || rollAt != Long.MAX_VALUE && System.currentTimeMillis() >= rollAt) roll();
+            int end = off + len;
+            for (int i = off; i < end; i++) {
+                char c = cbuf[i];
+                if (c < 0x80) {
+                    put(c);
+                } else if (c < 0x800) {
+                    put(0xC0 | c >> 6);
+                    put(0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(cbuf[i + 1])) {
+                    int code = Character.toCodePoint(c, cbuf[++i]);
+                    put(0xF0 | code >> 18);
+                    put(0x80 | code >> 12 & 0x3F);
+                    put(0x80 | code >> 6 & 0x3F);
+                    put(0x80 | code & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    put('?');
+                } else {
+                    put(0xE0 | c >> 12);
+                    put(0x80 | c >> 6 & 0x3F);
+                    put(0x80 | c & 0x3F);
+                }
+            }
+            if (nextRegion == null && region.position() > regionSize / 2) {
+                nextRegion = channel.map(FileChannel.MapMode.READ_WRITE, regionStart + regionSize, regionSize);
+            }
+        }
+    }
+
+    private void put(int b) throws IOException {
+        if (!region.hasRemaining()) nextRegion();
+        region.put((byte) b);
+    }
+
+    private long position() {
+        return regionStart + region.position();
+    }
+
+    private void nextRegion() throws IOException {
+        unmap(previousRegion);
+        previousRegion = region;
+        regionStart += regionSize;
+        region = nextRegion != null ? nextRegion : channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+        nextRegion = null;
+    }
+
+    /**
+     * Move the file aside and start a new one. If that fails the writer is closed, since it no longer has a
+     * mapped region, and every later call throws an {@link IOException} caused by the failure.
+     */
+    private void roll() throws IOException {
+        try {
+            closeFile();
+            for (int i = retention; i > 0; i--) {
+                Path source = i == 1 ? file : rolled(i - 1);
+                if (Files.exists(source)) Files.move(source, rolled(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (retention <= 0) Files.deleteIfExists(file);
+            open();
+        } catch (IOException | RuntimeException e) {
+            closed = true;
+            failure = e;
+            region = null;
+            nextRegion = null;
+            previousRegion = null;
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    private IOException closedException() {
+        return failure != null ? new IOException("Writer is closed since rolling " + file + " failed", failure)
+                : new IOException("Writer is closed");
+    }
+
+    private Path rolled(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeFile() throws IOException {
+        long size = position();
+        unmap(previousRegion);
+        unmap(region);
+        unmap(nextRegion);
+        previousRegion = null;
+        region = null;
+        nextRegion = null;
+        channel.truncate(size);
+        channel.close();
+    }
+
+    /**
+     * Release a mapping now instead of when it is garbage collected, so the file can be truncated and moved on
+     * every platform. A mapping that cannot be released this way is left to the garbage collector.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null) return;
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return;
+            }
+            Method cleaner = buffer.getClass().getMethod("cleaner");
+            cleaner.setAccessible(true);
+            Object clean = cleaner.invoke(buffer);
+            if (clean != null) clean.getClass().getMethod("clean").invoke(clean);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+        }
+    }
+
+    /**
+     * Write the mapped data to the storage device. Data written to regions older than the previous one has
+     * already been unmapped and is written back by the operating system.
+     *
+     * @throws IOException if the writer is closed
+     */
+    public void force() throws IOException {
+        synchronized (lock) {
+            if (closed) throw closedException();
+            forceRegions();
+        }
+    }
+
+    private void forceRegions() {
+        if (previousRegion != null) {
+            previousRegion.force();
+            unmap(previousRegion);
+            previousRegion = null;
+        }
+        region.force();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) return;
+            closed = true;
+            forceRegions();
+            closeFile();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.Arrays;
+
+/**
+ * Formats {@code {}} style messages, as in {@code Log.d("foo", "user {} took {} ms", id, ms)}. Each
+ * {@code {}} is replaced by the next argument; placeholders without an argument are kept as they are, and
+ * {@code \{}} writes a literal {@code {}}.
+ */
+final class ParameterizedMessage {
+    private ParameterizedMessage() {
+    }
+
+    /**
+     * Format a message into the buffer. The first two arguments are passed separately so that the common
+     * calls do not need an array.
+     *
+     * @param out      {@link StringBuilder}
+     * @param pattern  {@link String}
+     * @param argCount number of arguments
+     * @param arg1     first argument
+     * @param arg2     second argument
+     * @param args     every argument when there are more than two, otherwise null
+     */
+    static void format(StringBuilder out, String pattern, int argCount, Object arg1, Object arg2, Object[] args) {
+        if (pattern == null) {
+            out.append((String) null);
+            return;
+        }
+        int next = 0;
+        int from = 0;
+        int length = pattern.length();
+        for (int i = 0; i < length - 1; i++) {
+            if (pattern.charAt(i) != '{' || pattern.charAt(i + 1) != '}') continue;
+            if (i > 0 && pattern.charAt(i - 1) == '\\') {
+                out.append(pattern, from, i - 1).append("{}");
+            } else {
+                if (next == argCount) continue;
+                out.append(pattern, from, i);
+                Object arg = args != null ? args[next] : next == 0 ? arg1 : arg2;
+                appendArg(out, arg);
+                next++;
+            }
+            from = i + 2;
+            i++;
+        }
+        out.append(pattern, from, length);
+    }
+
+    /**
+     * Format a message into a new {@link String}.
+     *
+     * @param pattern  {@link String}
+     * @param argCount number of arguments
+     * @param arg1     first argument
+     * @param arg2     second argument
+     * @param args     every argument when there are more than two, otherwise null
+     * @return {@link String}
+     */
+    static String format(String pattern, int argCount, Object arg1, Object arg2, Object[] args) {
+        LogBuffer buffer = LogBuffer.acquire();
+        try {
+            format(buffer.text, pattern, argCount, arg1, arg2, args);
+            return buffer.text.toString();
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static void appendArg(StringBuilder out, Object arg) {
+        if (arg instanceof Integer) out.append(((Integer) arg).intValue());
+        else if (arg instanceof Long) out.append(((Long) arg).longValue());
+        else if (arg instanceof Object[]) out.append(Arrays.deepToString((Object[]) arg));
+        else out.append(arg);
+    }
+}
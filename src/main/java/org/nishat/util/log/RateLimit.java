@@ -0,0 +1,92 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How many events a tag, or a call site, may log before further events are suppressed. Configure it as follows:
+ * <pre>
+ *     GlobalLogConfig.RATE_LIMIT = RateLimit.perSecond(100, 500).perCallSite();
+ * </pre>
+ * Events beyond the limit are dropped before they are formatted. Every summary interval, a tag that had
+ * suppressed events logs one event such as {@code suppressed 48,213 events for tag db in the last 10s}, at the
+ * highest level that was suppressed.
+ *
+ * @implSpec This class is immutable and thread-safe.
+ */
+public final class RateLimit {
+    /**
+     * Default time between summaries of suppressed events, in milliseconds
+     */
+    public static final long DEFAULT_SUMMARY_INTERVAL = 10_000;
+
+    /**
+     * Nanoseconds between two events at the sustained rate
+     */
+    final long intervalNanos;
+    /**
+     * How far ahead of the sustained rate a burst may get, in nanoseconds
+     */
+    final long toleranceNanos;
+    final boolean perCallSite;
+    final long summaryIntervalMillis;
+
+    private RateLimit(long intervalNanos, long toleranceNanos, boolean perCallSite, long summaryIntervalMillis) {
+        this.intervalNanos = intervalNanos;
+        this.toleranceNanos = toleranceNanos;
+        this.perCallSite = perCallSite;
+        this.summaryIntervalMillis = summaryIntervalMillis;
+    }
+
+    /**
+     * Allow a sustained rate of events per tag, and bursts of up to a number of events
+     *
+     * @param events events per second
+     * @param burst  events that may be logged at once
+     * @return {@link RateLimit}
+     */
+    public static RateLimit perSecond(double events, int burst) {
+        if (!(events > 0)) throw new IllegalArgumentException("events must be positive: " + events);
+        if (burst < 1) throw new IllegalArgumentException("burst must be positive: " + burst);
+        long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / events));
+        return new RateLimit(interval, interval * burst, false, DEFAULT_SUMMARY_INTERVAL);
+    }
+
+    /**
+     * Limit every call site on its own instead of every tag. The caller location is captured for every event.
+     *
+     * @return {@link RateLimit}
+     */
+    public RateLimit perCallSite() {
+        return new RateLimit(intervalNanos, toleranceNanos, true, summaryIntervalMillis);
+    }
+
+    /**
+     * Summarize suppressed events every T milliseconds instead of {@value #DEFAULT_SUMMARY_INTERVAL}
+     *
+     * @param millis interval in milliseconds
+     * @return {@link RateLimit}
+     */
+    public RateLimit withSummaryInterval(long millis) {
+        if (millis < 1) throw new IllegalArgumentException("millis must be positive: " + millis);
+        return new RateLimit(intervalNanos, toleranceNanos, perCallSite, millis);
+    }
+}
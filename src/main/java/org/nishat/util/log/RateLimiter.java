@@ -0,0 +1,162 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * State of a {@link RateLimit} for one {@link LogSite}. Admission follows the generic cell rate algorithm: a
+ * single {@link AtomicLong} holds the time at which the next event would be on schedule, and an event is
+ * admitted if that time is at most the burst tolerance ahead of now. Admission is one compare-and-set, so it
+ * never blocks. A site limited by several configs with different limits has one state per limit, up to
+ * {@value #MAX_PER_SITE}; past that the state of the oldest limit is dropped.
+ */
+final class RateLimiter {
+    static final RateLimiter[] NONE = new RateLimiter[0];
+    private static final int MAX_PER_SITE = 4;
+    private static final long SUMMARY_TICK = 1000;
+    private static final Set<RateLimiter> SUPPRESSING = ConcurrentHashMap.newKeySet();
+    private static boolean scheduled;
+
+    private final RateLimit limit;
+    private final LogSite site;
+    private final AtomicLong next;
+    private final LongAdder suppressed = new LongAdder();
+    private volatile boolean active;
+    private volatile LogLevel level;
+    private volatile ResolvedLogConfig config;
+    private long windowStart;
+
+    private RateLimiter(RateLimit limit, LogSite site) {
+        this.limit = limit;
+        this.site = site;
+        this.next = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Check if an event may be logged, counting it as suppressed otherwise
+     *
+     * @param limit  {@link RateLimit}
+     * @param site   {@link LogSite} to limit, nullable to admit the event
+     * @param level  {@link LogLevel} of the event, nullable for raw events
+     * @param config {@link ResolvedLogConfig} of the event, used to log the summary
+     * @return true if the event may be logged
+     */
+    static boolean tryAcquire(RateLimit limit, LogSite site, LogLevel level, ResolvedLogConfig config) {
+        if (site == null) return true;
+        return of(limit, site).tryAcquire(level, config);
+    }
+
+    private static RateLimiter of(RateLimit limit, LogSite site) {
+        for (RateLimiter limiter : site.limiters) {
+            if (limiter.limit == limit) return limiter;
+        }
+        synchronized (site) {
+            RateLimiter[] current = site.limiters;
+            for (RateLimiter limiter : current) {
+                if (limiter.limit == limit) return limiter;
+            }
+            RateLimiter[] grown;
+            if (current.length < MAX_PER_SITE) {
+                grown = Arrays.copyOf(current, current.length + 1);
+            } else {
+                grown = new RateLimiter[MAX_PER_SITE];
+                System.arraycopy(current, 1, grown, 0, MAX_PER_SITE - 1);
+            }
+            RateLimiter limiter = new RateLimiter(limit, site);
+            grown[grown.length - 1] = limiter;
+            site.limiters = grown;
+            return limiter;
+        }
+    }
+
+    private boolean tryAcquire(LogLevel level, ResolvedLogConfig config) {
+        long now = System.nanoTime();
+        for (; ; ) {
+            long scheduled = next.get();
+            long following = (scheduled - now > 0 ? scheduled : now) + limit.intervalNanos;
+            if (following - now > limit.toleranceNanos) break;
+            if (next.compareAndSet(scheduled, following)) return true;
+        }
+        suppressed.increment();
+        LogLevel highest = this.level;
+        if (level != null && (highest == null || level.value > highest.value)) this.level = level;
+        if (this.config != config) this.config = config;
+        if (!active) activate();
+        return false;
+    }
+
+    private void activate() {
+        synchronized (this) {
+            if (active) return;
+            windowStart = System.nanoTime();
+            active = true;
+        }
+        SUPPRESSING.add(this);
+        synchronized (RateLimiter.class) {
+            if (!scheduled) {
+                LogScheduler.schedule(() -> summarize(false), SUMMARY_TICK);
+                scheduled = true;
+            }
+        }
+    }
+
+    /**
+     * Log a summary for every limiter whose summary interval has passed
+     *
+     * @param all whether to log every pending summary now, as on shutdown
+     */
+    static void summarize(boolean all) {
+        for (RateLimiter limiter : SUPPRESSING) limiter.summarize(System.nanoTime(), all);
+    }
+
+    private void summarize(long now, boolean all) {
+        long count;
+        long elapsed;
+        LogLevel highest;
+        synchronized (this) {
+            elapsed = now - windowStart;
+            if (!all && elapsed < limit.summaryIntervalMillis * 1_000_000) return;
+            count = suppressed.sumThenReset();
+            highest = level;
+            level = null;
+            windowStart = now;
+            if (count == 0) {
+                active = false;
+                SUPPRESSING.remove(this);
+            }
+        }
+        if (count == 0) {
+            // an event suppressed while this limiter went idle would not have registered it again
+            if (suppressed.sum() > 0) activate();
+            return;
+        }
+        String target = site.site != null
+                ? "tag " + site.tag + " at " + site.site.fileName + ":" + site.site.lineNumber
+                : "tag " + site.tag;
+        long seconds = Math.max(1, Math.round(elapsed / 1e9));
+        Log.summary(site, highest, String.format(Locale.ROOT, "suppressed %,d events for %s in the last %ds", count, target, seconds), config);
+    }
+}
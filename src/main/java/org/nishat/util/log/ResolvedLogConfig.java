@@ -0,0 +1,200 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.io.Writer;
+
+/**
+ * Immutable merge of {@link GlobalLogConfig} and a {@link LocalLogConfig}. A snapshot is resolved once and
+ * cached, globally or on its {@link LocalLogConfig}, and replaced with a volatile write as soon as any of the
+ * settings it was resolved from changes.
+ *
+ * <p>
+ * The settings are plain public fields without a change notification, so every log call checks that its
+ * snapshot is current: it compares each setting the snapshot was resolved from, about 25 plain field reads
+ * and reference comparisons for a {@link LocalLogConfig} call. That costs a few nanoseconds without locking
+ * or allocating, and saves merging the settings and compiling the template on every call.
+ */
+final class ResolvedLogConfig {
+    private static volatile ResolvedLogConfig global = new ResolvedLogConfig(null);
+
+    private final Writer globalWriter;
+    private final String globalFormat;
+    private final LogEncoder globalEncoder;
+    private final LogLevel globalLevel;
+    private final boolean globalColor;
+    private final LogStyle globalStyle;
+    private final LogLevel globalLocationLevel;
+    private final TimestampFormat globalTimestampFormat;
+    private final StackTraceFormat globalStackTraceFormat;
+    private final LogClock globalClock;
+    private final FlushPolicy globalFlushPolicy;
+    private final RateLimit globalRateLimit;
+    private final BinaryLogWriter globalBinaryWriter;
+    private final Writer localWriter;
+    private final String localFormat;
+    private final LogEncoder localEncoder;
+    private final LogLevel localLevel;
+    private final Boolean localColor;
+    private final LogStyle localStyle;
+    private final LogLevel localLocationLevel;
+    private final TimestampFormat localTimestampFormat;
+    private final StackTraceFormat localStackTraceFormat;
+    private final FlushPolicy localFlushPolicy;
+    private final RateLimit localRateLimit;
+    private final BinaryLogWriter localBinaryWriter;
+
+    final Writer writer;
+    final LogOutput output;
+    /**
+     * Binary writer replacing {@link #output}, or null to write text
+     */
+    final BinaryLogWriter binaryWriter;
+    final FlushPolicy flushPolicy;
+    final FormatTemplate template;
+    final LogEncoder encoder;
+    final LogLevel level;
+    /**
+     * {@link LogStyle#PLAIN} unless colored logging is enabled
+     */
+    final LogStyle style;
+    /**
+     * Lowest level whose caller location is captured, or {@link Integer#MAX_VALUE} if it is never captured
+     */
+    final int locationLevel;
+    final TimestampFormat timestampFormat;
+    final StackTraceFormat stackTraceFormat;
+    /**
+     * {@link RateLimit} of the events, nullable
+     */
+    final RateLimit rateLimit;
+    final LogClock clock;
+
+    private ResolvedLogConfig(LocalLogConfig config) {
+        globalWriter = GlobalLogConfig.WRITER;
+        globalFormat = GlobalLogConfig.FORMAT;
+        globalEncoder = GlobalLogConfig.ENCODER;
+        globalLevel = GlobalLogConfig.LOG_LEVEL;
+        globalColor = GlobalLogConfig.LOG_COLOR;
+        globalStyle = GlobalLogConfig.LOG_STYLE;
+        globalLocationLevel = GlobalLogConfig.LOCATION_LEVEL;
+        globalTimestampFormat = GlobalLogConfig.TIMESTAMP_FORMAT;
+        globalStackTraceFormat = GlobalLogConfig.STACK_TRACE_FORMAT;
+        globalClock = GlobalLogConfig.CLOCK;
+        globalFlushPolicy = GlobalLogConfig.FLUSH_POLICY;
+        globalRateLimit = GlobalLogConfig.RATE_LIMIT;
+        globalBinaryWriter = GlobalLogConfig.BINARY_WRITER;
+        if (config != null) {
+            localWriter = config.WRITER;
+            localFormat = config.FORMAT;
+            localEncoder = config.ENCODER;
+            localLevel = config.LOG_LEVEL;
+            localColor = config.LOG_COLOR;
+            localStyle = config.LOG_STYLE;
+            localLocationLevel = config.LOCATION_LEVEL;
+            localTimestampFormat = config.TIMESTAMP_FORMAT;
+            localStackTraceFormat = config.STACK_TRACE_FORMAT;
+            localFlushPolicy = config.FLUSH_POLICY;
+            localRateLimit = config.RATE_LIMIT;
+            localBinaryWriter = config.BINARY_WRITER;
+        } else {
+            localWriter = null;
+            localFormat = null;
+            localEncoder = null;
+            localLevel = null;
+            localColor = null;
+            localStyle = null;
+            localLocationLevel = null;
+            localTimestampFormat = null;
+            localStackTraceFormat = null;
+            localFlushPolicy = null;
+            localRateLimit = null;
+            localBinaryWriter = null;
+        }
+        writer = localWriter != null ? localWriter : globalWriter;
+        output = LogOutput.of(writer);
+        binaryWriter = localBinaryWriter != null ? localBinaryWriter : globalBinaryWriter;
+        FlushPolicy policy = localFlushPolicy != null ? localFlushPolicy : globalFlushPolicy;
+        flushPolicy = policy != null ? policy : FlushPolicy.EVERY_EVENT;
+        template = FormatTemplate.of(localFormat != null ? localFormat : globalFormat);
+        LogEncoder selectedEncoder = localEncoder != null ? localEncoder : globalEncoder;
+        encoder = selectedEncoder != null ? selectedEncoder : LogEncoder.TEXT;
+        level = localLevel != null ? localLevel : globalLevel;
+        boolean color = localColor != null ? localColor : globalColor;
+        LogStyle selected = localStyle != null ? localStyle : globalStyle;
+        style = !color ? LogStyle.PLAIN : selected != null ? selected : LogStyle.ANSI;
+        LogLevel location = localLocationLevel != null ? localLocationLevel : globalLocationLevel;
+        locationLevel = location != null && (binaryWriter != null || encoder.usesLocation(template)) ? location.value : Integer.MAX_VALUE;
+        TimestampFormat format = localTimestampFormat != null ? localTimestampFormat : globalTimestampFormat;
+        timestampFormat = format != null ? format : TimestampFormat.ISO;
+        StackTraceFormat traceFormat = localStackTraceFormat != null ? localStackTraceFormat : globalStackTraceFormat;
+        stackTraceFormat = traceFormat != null ? traceFormat : StackTraceFormat.FULL;
+        rateLimit = localRateLimit != null ? localRateLimit : globalRateLimit;
+        clock = globalClock != null ? globalClock : LogClock.SYSTEM;
+    }
+
+    /**
+     * Get the resolved settings of a call.
+     *
+     * @param config {@link LocalLogConfig} nullable
+     * @return {@link ResolvedLogConfig}
+     */
+    static ResolvedLogConfig of(LocalLogConfig config) {
+        if (config == null) {
+            ResolvedLogConfig resolved = global;
+            if (!resolved.isCurrent(null)) global = resolved = new ResolvedLogConfig(null);
+            return resolved;
+        }
+        ResolvedLogConfig resolved = config.resolved;
+        if (resolved == null || !resolved.isCurrent(config)) config.resolved = resolved = new ResolvedLogConfig(config);
+        return resolved;
+    }
+
+    /**
+     * Check if the caller location of an event has to be captured
+     *
+     * @param level {@link LogLevel} nullable for raw events
+     * @return boolean
+     */
+    boolean capturesLocation(LogLevel level) {
+        return (level != null ? level.value : LogLevel.INFO.value) >= locationLevel;
+    }
+
+    /**
+     * Compare every setting this snapshot was resolved from, by reference, with its current value
+     */
+    private boolean isCurrent(LocalLogConfig config) {
+        if (globalWriter != GlobalLogConfig.WRITER || globalFormat != GlobalLogConfig.FORMAT
+                || globalEncoder != GlobalLogConfig.ENCODER
+                || globalLevel != GlobalLogConfig.LOG_LEVEL || globalColor != GlobalLogConfig.LOG_COLOR
+                || globalStyle != GlobalLogConfig.LOG_STYLE || globalLocationLevel != GlobalLogConfig.LOCATION_LEVEL
+                || globalTimestampFormat != GlobalLogConfig.TIMESTAMP_FORMAT || globalClock != GlobalLogConfig.CLOCK
+                || globalStackTraceFormat != GlobalLogConfig.STACK_TRACE_FORMAT
+                || globalFlushPolicy != GlobalLogConfig.FLUSH_POLICY || globalRateLimit != GlobalLogConfig.RATE_LIMIT
+                || globalBinaryWriter != GlobalLogConfig.BINARY_WRITER) return false;
+        if (config == null) return true;
+        return localWriter == config.WRITER && localFormat == config.FORMAT && localEncoder == config.ENCODER
+                && localLevel == config.LOG_LEVEL && localColor == config.LOG_COLOR && localStyle == config.LOG_STYLE
+                && localLocationLevel == config.LOCATION_LEVEL && localTimestampFormat == config.TIMESTAMP_FORMAT
+                && localStackTraceFormat == config.STACK_TRACE_FORMAT
+                && localFlushPolicy == config.FLUSH_POLICY && localRateLimit == config.RATE_LIMIT
+                && localBinaryWriter == config.BINARY_WRITER;
+    }
+}
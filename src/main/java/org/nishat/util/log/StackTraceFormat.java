@@ -0,0 +1,170 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * How the stack trace of an exception logged with {@code Log.e(tag, message, throwable)} is written. Limit and
+ * fold deep traces as follows:
+ * <pre>
+ *     GlobalLogConfig.STACK_TRACE_FORMAT = StackTraceFormat.FULL
+ *             .withMaxFrames(30)
+ *             .folding("org.springframework.", "sun.reflect.", "java.lang.reflect.");
+ * </pre>
+ * The layout is the one of {@link Throwable#printStackTrace()}: causes and suppressed exceptions follow their
+ * exception, and frames a cause shares with the exception it caused are written as {@code ... N more}. A run
+ * of frames in a folded package is written as one line, such as {@code ... 14 frames of org.springframework.},
+ * and frames beyond the limit as {@code ... 120 frames truncated}.
+ *
+ * @implSpec Traces are appended straight to the output buffer of the event. This class is immutable and
+ * thread-safe.
+ */
+public final class StackTraceFormat {
+    /**
+     * Every frame, nothing folded. This is the default format.
+     */
+    public static final StackTraceFormat FULL = new StackTraceFormat(Integer.MAX_VALUE, new String[0]);
+
+    final int maxFrames;
+    private final String[] folded;
+
+    private StackTraceFormat(int maxFrames, String[] folded) {
+        this.maxFrames = maxFrames;
+        this.folded = folded;
+    }
+
+    /**
+     * Write at most N frames of every exception in the chain. Folded runs do not count towards the limit.
+     *
+     * @param frames number of frames
+     * @return {@link StackTraceFormat}
+     */
+    public StackTraceFormat withMaxFrames(int frames) {
+        if (frames < 0) throw new IllegalArgumentException("frames must not be negative: " + frames);
+        return new StackTraceFormat(frames, folded);
+    }
+
+    /**
+     * Write every run of frames whose class name starts with one of these prefixes as a single line
+     *
+     * @param prefixes class name prefixes, such as {@code "org.springframework."}
+     * @return {@link StackTraceFormat}
+     */
+    public StackTraceFormat folding(String... prefixes) {
+        for (String prefix : prefixes) {
+            if (prefix == null || prefix.isEmpty()) throw new IllegalArgumentException("prefix must not be empty");
+        }
+        return new StackTraceFormat(maxFrames, prefixes.clone());
+    }
+
+    /**
+     * Append a stack trace, without a line separator at the end
+     *
+     * @param out {@link StringBuilder}
+     * @param e   {@link Throwable}
+     */
+    void append(StringBuilder out, Throwable e) {
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        seen.add(e);
+        out.append(e);
+        StackTraceElement[] trace = e.getStackTrace();
+        appendFrames(out, trace, null, "");
+        appendRelated(out, e, trace, "", seen);
+    }
+
+    private void appendEnclosed(StringBuilder out, Throwable e, StackTraceElement[] enclosing, String caption,
+                                String prefix, Set<Throwable> seen) {
+        out.append('\n').append(prefix).append(caption);
+        if (!seen.add(e)) {
+            out.append("[CIRCULAR REFERENCE: ").append(e).append(']');
+            return;
+        }
+        out.append(e);
+        StackTraceElement[] trace = e.getStackTrace();
+        appendFrames(out, trace, enclosing, prefix);
+        appendRelated(out, e, trace, prefix, seen);
+    }
+
+    private void appendRelated(StringBuilder out, Throwable e, StackTraceElement[] trace, String prefix, Set<Throwable> seen) {
+        for (Throwable suppressed : e.getSuppressed()) {
+            appendEnclosed(out, suppressed, trace, "Suppressed: ", prefix + "\t", seen);
+        }
+        Throwable cause = e.getCause();
+        if (cause != null) appendEnclosed(out, cause, trace, "Caused by: ", prefix, seen);
+    }
+
+    /**
+     * Append the frames of one exception, leaving out the frames it has in common with the enclosing trace
+     */
+    private void appendFrames(StringBuilder out, StackTraceElement[] trace, StackTraceElement[] enclosing, String prefix) {
+        int end = trace.length;
+        if (enclosing != null) {
+            int j = enclosing.length - 1;
+            while (end > 0 && j >= 0 && trace[end - 1].equals(enclosing[j])) {
+                end--;
+                j--;
+            }
+        }
+        int written = 0;
+        int i = 0;
+        while (i < end) {
+            String fold = foldOf(trace[i].getClassName());
+            if (fold != null) {
+                int run = i + 1;
+                while (run < end && fold.equals(foldOf(trace[run].getClassName()))) run++;
+                out.append('\n').append(prefix).append("\t... ").append(run - i).append(run - i == 1 ? " frame of " : " frames of ").append(fold);
+                i = run;
+                continue;
+            }
+            if (written == maxFrames) {
+                out.append('\n').append(prefix).append("\t... ").append(end - i).append(end - i == 1 ? " frame truncated" : " frames truncated");
+                break;
+            }
+            out.append('\n').append(prefix).append("\tat ");
+            appendFrame(out, trace[i]);
+            written++;
+            i++;
+        }
+        if (end < trace.length) out.append('\n').append(prefix).append("\t... ").append(trace.length - end).append(" more");
+    }
+
+    private static void appendFrame(StringBuilder out, StackTraceElement frame) {
+        out.append(frame.getClassName()).append('.').append(frame.getMethodName()).append('(');
+        if (frame.isNativeMethod()) {
+            out.append("Native Method");
+        } else if (frame.getFileName() == null) {
+            out.append("Unknown Source");
+        } else {
+            out.append(frame.getFileName());
+            if (frame.getLineNumber() >= 0) out.append(':').append(frame.getLineNumber());
+        }
+        out.append(')');
+    }
+
+    private String foldOf(String className) {
+        for (String prefix : folded) {
+            if (className.startsWith(prefix)) return prefix;
+        }
+        return null;
+    }
+}
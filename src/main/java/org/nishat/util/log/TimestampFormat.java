@@ -0,0 +1,181 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * How {@link LogProperties#TIMESTAMP} is rendered. Configure it as follows:
+ * <pre>
+ *     GlobalLogConfig.TIMESTAMP_FORMAT = TimestampFormat.EPOCH_MILLIS;
+ *     GlobalLogConfig.TIMESTAMP_FORMAT = TimestampFormat.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+ * </pre>
+ *
+ * @implSpec Formats cache what they rendered last, so consecutive events only re-render the digits that
+ * changed. Instances are immutable apart from that cache and thread-safe.
+ */
+public abstract class TimestampFormat {
+    /**
+     * Local date and time with milliseconds, as in {@code 2023-03-29T17:33:18.123}
+     */
+    public static final TimestampFormat ISO = new Iso();
+
+    /**
+     * Milliseconds since the epoch, as in {@code 1680090798123}
+     */
+    public static final TimestampFormat EPOCH_MILLIS = new Epoch(1000);
+
+    /**
+     * Microseconds since the epoch, as in {@code 1680090798123456}. The value is only as precise as
+     * {@link GlobalLogConfig#CLOCK}: the default {@link LogClock#SYSTEM} has millisecond precision, so its values
+     * always end in {@code 000}. Set a finer clock to get microseconds, as follows:
+     * <pre>
+     *     GlobalLogConfig.CLOCK = () -&gt; {
+     *         Instant now = Instant.now();
+     *         return now.getEpochSecond() * 1_000_000 + now.getNano() / 1000;
+     *     };
+     * </pre>
+     */
+    public static final TimestampFormat EPOCH_MICROS = new Epoch(1);
+
+    TimestampFormat() {
+    }
+
+    /**
+     * Format timestamps with a {@link DateTimeFormatter} pattern in the system time zone
+     *
+     * @param pattern {@link String}
+     * @return {@link TimestampFormat}
+     */
+    public static TimestampFormat ofPattern(String pattern) {
+        return of(DateTimeFormatter.ofPattern(pattern));
+    }
+
+    /**
+     * Format timestamps with a {@link DateTimeFormatter}. A formatter without a zone uses the system time zone.
+     *
+     * @param formatter {@link DateTimeFormatter}
+     * @return {@link TimestampFormat}
+     */
+    public static TimestampFormat of(DateTimeFormatter formatter) {
+        return new Custom(formatter.getZone() != null ? formatter : formatter.withZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Append a timestamp
+     *
+     * @param epochMicros microseconds since the epoch
+     * @param out         {@link StringBuilder}
+     */
+    abstract void format(long epochMicros, StringBuilder out);
+
+    private static final class Iso extends TimestampFormat {
+        private volatile Second last = new Second(Long.MIN_VALUE, new char[0]);
+
+        @Override
+        void format(long epochMicros, StringBuilder out) {
+            long millis = Math.floorDiv(epochMicros, 1000L);
+            long second = Math.floorDiv(millis, 1000L);
+            Second cached = last;
+            if (cached.second != second) last = cached = new Second(second, prefix(second));
+            out.append(cached.prefix);
+            int milli = (int) Math.floorMod(millis, 1000L);
+            out.append((char) ('0' + milli / 100)).append((char) ('0' + milli / 10 % 10)).append((char) ('0' + milli % 10));
+        }
+
+        private static char[] prefix(long second) {
+            ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochSecond(second));
+            LocalDateTime time = LocalDateTime.ofEpochSecond(second, 0, offset);
+            StringBuilder prefix = new StringBuilder(24);
+            pad(prefix, time.getYear(), 4).append('-');
+            pad(prefix, time.getMonthValue(), 2).append('-');
+            pad(prefix, time.getDayOfMonth(), 2).append('T');
+            pad(prefix, time.getHour(), 2).append(':');
+            pad(prefix, time.getMinute(), 2).append(':');
+            pad(prefix, time.getSecond(), 2).append('.');
+            char[] chars = new char[prefix.length()];
+            prefix.getChars(0, chars.length, chars, 0);
+            return chars;
+        }
+
+        private static StringBuilder pad(StringBuilder out, int value, int width) {
+            for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+                if (value < limit) out.append('0');
+            }
+            return out.append(value);
+        }
+    }
+
+    private static final class Second {
+        final long second;
+        final char[] prefix;
+
+        Second(long second, char[] prefix) {
+            this.second = second;
+            this.prefix = prefix;
+        }
+    }
+
+    private static final class Epoch extends TimestampFormat {
+        private final long divisor;
+
+        Epoch(long divisor) {
+            this.divisor = divisor;
+        }
+
+        @Override
+        void format(long epochMicros, StringBuilder out) {
+            out.append(Math.floorDiv(epochMicros, divisor));
+        }
+    }
+
+    private static final class Custom extends TimestampFormat {
+        private final DateTimeFormatter formatter;
+        private volatile Rendered last = new Rendered(Long.MIN_VALUE, "");
+
+        Custom(DateTimeFormatter formatter) {
+            this.formatter = formatter;
+        }
+
+        @Override
+        void format(long epochMicros, StringBuilder out) {
+            Rendered cached = last;
+            if (cached.epochMicros != epochMicros) {
+                Instant instant = Instant.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L), Math.floorMod(epochMicros, 1_000_000L) * 1000);
+                last = cached = new Rendered(epochMicros, formatter.format(instant));
+            }
+            out.append(cached.text);
+        }
+    }
+
+    private static final class Rendered {
+        final long epochMicros;
+        final String text;
+
+        Rendered(long epochMicros, String text) {
+            this.epochMicros = epochMicros;
+            this.text = text;
+        }
+    }
+}
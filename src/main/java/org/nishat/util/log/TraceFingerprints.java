@@ -0,0 +1,191 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Recent exceptions printed by {@link DebugManager}, keyed by their fingerprint: a 64-bit hash of the exception
+ * class and its top {@value #FRAMES} frames. The first occurrence of a fingerprint in a window gets its full
+ * trace; later ones in the same window are only counted, and a summary of them is printed once the window
+ * ends. At most {@value #MAX_ENTRIES} fingerprints are kept, the least recently seen being evicted first.
+ * Summaries of failures of the logging pipeline itself go to the same place as the failures, see
+ * {@link DebugManager}.
+ */
+final class TraceFingerprints {
+    static final int FRAMES = 5;
+    private static final int MAX_ENTRIES = 1024;
+    private static final long SUMMARY_TICK = 1000;
+    private static final List<Summary> EVICTED = new ArrayList<>();
+    private static final Map<Long, Fingerprint> ENTRIES = new LinkedHashMap<Long, Fingerprint>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Fingerprint> eldest) {
+            if (size() <= MAX_ENTRIES) return false;
+            if (eldest.getValue().repeats > 0) EVICTED.add(eldest.getValue().summaryLocked(System.nanoTime()));
+            return true;
+        }
+    };
+    private static boolean scheduled;
+
+    private TraceFingerprints() {
+    }
+
+    /**
+     * Compute the fingerprint of an exception
+     *
+     * @param e {@link Throwable}
+     * @return long
+     */
+    static long of(Throwable e) {
+        long hash = mix(0xcbf29ce484222325L, e.getClass().getName().hashCode());
+        StackTraceElement[] trace = e.getStackTrace();
+        for (int i = 0; i < trace.length && i < FRAMES; i++) {
+            hash = mix(hash, trace[i].getClassName().hashCode());
+            hash = mix(hash, trace[i].getMethodName().hashCode());
+            hash = mix(hash, trace[i].getLineNumber());
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    /**
+     * Printable id of a fingerprint
+     *
+     * @param fingerprint long
+     * @return eight hex digits
+     */
+    static String id(long fingerprint) {
+        String hex = Integer.toHexString((int) (fingerprint ^ fingerprint >>> 32));
+        return hex.length() == 8 ? hex : "00000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Count an occurrence of a fingerprint
+     *
+     * @param fingerprint  long
+     * @param windowMillis length of the window in milliseconds
+     * @param internal     whether the exception is a failure of the logging pipeline
+     * @return number of the occurrence in its window, 1 if the full trace has to be printed
+     */
+    static long record(long fingerprint, long windowMillis, boolean internal) {
+        long now = System.nanoTime();
+        Summary summary = null;
+        long occurrence;
+        synchronized (ENTRIES) {
+            Fingerprint entry = ENTRIES.get(fingerprint);
+            if (entry == null) {
+                entry = new Fingerprint(fingerprint);
+                ENTRIES.put(fingerprint, entry);
+            }
+            entry.internal |= internal;
+            if (entry.occurrences == 0 || now - entry.windowStart >= windowMillis * 1_000_000) {
+                if (entry.repeats > 0) summary = entry.summaryLocked(now);
+                entry.windowStart = now;
+                entry.windowMillis = windowMillis;
+                entry.occurrences = 1;
+            } else {
+                entry.repeats++;
+                entry.occurrences++;
+            }
+            occurrence = entry.occurrences;
+            if (occurrence > 1 && !scheduled) {
+                LogScheduler.schedule(() -> summarize(false), SUMMARY_TICK);
+                scheduled = true;
+            }
+        }
+        if (summary != null) summary.print();
+        printEvicted();
+        return occurrence;
+    }
+
+    /**
+     * Print a summary for every fingerprint whose window has ended with repeats
+     *
+     * @param all whether to print every pending summary now, as on shutdown
+     */
+    static void summarize(boolean all) {
+        long now = System.nanoTime();
+        List<Summary> summaries = new ArrayList<>();
+        synchronized (ENTRIES) {
+            for (Fingerprint entry : ENTRIES.values()) {
+                if (entry.repeats > 0 && (all || now - entry.windowStart >= entry.windowMillis * 1_000_000)) {
+                    summaries.add(entry.summaryLocked(now));
+                }
+            }
+        }
+        for (Summary summary : summaries) summary.print();
+        printEvicted();
+    }
+
+    private static void printEvicted() {
+        List<Summary> evicted;
+        synchronized (ENTRIES) {
+            if (EVICTED.isEmpty()) return;
+            evicted = new ArrayList<>(EVICTED);
+            EVICTED.clear();
+        }
+        for (Summary summary : evicted) summary.print();
+    }
+
+    private static final class Fingerprint {
+        final long fingerprint;
+        long windowStart;
+        long windowMillis;
+        long occurrences;
+        long repeats;
+        boolean internal;
+
+        Fingerprint(long fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * Take the repeats counted so far as a summary line, leaving this entry without repeats
+         */
+        Summary summaryLocked(long now) {
+            long seconds = Math.max(1, Math.round((now - windowStart) / 1e9));
+            String text = String.format(Locale.ROOT, "Debug Catch %s repeated %,d times in the last %ds",
+                    id(fingerprint), repeats, seconds);
+            repeats = 0;
+            return new Summary(text, internal);
+        }
+    }
+
+    private static final class Summary {
+        final String text;
+        final boolean internal;
+
+        Summary(String text, boolean internal) {
+            this.text = text;
+            this.internal = internal;
+        }
+
+        void print() {
+            DebugManager.getInstance().summarize(text, internal);
+        }
+    }
+}
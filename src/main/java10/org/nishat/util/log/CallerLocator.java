@@ -0,0 +1,116 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+package org.nishat.util.log;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Finds the {@link CallSite} of a log call: the first stack frame outside of this package.
+ *
+ * <p>
+ * This is the Java 10 implementation. It walks only the frames up to the caller with {@link StackWalker}, and
+ * caches the resolved location per class, method, method descriptor and bytecode index, so a repeated call
+ * never builds a {@link StackTraceElement}. It needs Java 10 for {@link StackWalker.StackFrame#getDescriptor()},
+ * without which overloads and constructors of a class would share their locations.
+ */
+final class CallerLocator {
+    private static final String PACKAGE = CallerLocator.class.getPackageName() + ".";
+    private static final int MAX_CACHED_PER_CLASS = 256;
+    private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+    private static final Function<Stream<StackWalker.StackFrame>, Optional<StackWalker.StackFrame>> FIND_CALLER =
+            frames -> frames.dropWhile(frame -> isInternal(frame.getClassName())).findFirst();
+    private static final ClassValue<SiteTable> SITES = new ClassValue<SiteTable>() {
+        @Override
+        protected SiteTable computeValue(Class<?> type) {
+            return new SiteTable();
+        }
+    };
+
+    private CallerLocator() {
+    }
+
+    /**
+     * Locate the code that called into the logging API.
+     *
+     * @return {@link CallSite}, or null if there is no caller outside of this package
+     */
+    static CallSite locate() {
+        StackWalker.StackFrame frame = WALKER.walk(FIND_CALLER).orElse(null);
+        if (frame == null) return null;
+        return SITES.get(frame.getDeclaringClass()).get(frame);
+    }
+
+    /**
+     * Check if a class belongs to the logging library itself. Classes in sub packages are user code.
+     *
+     * @param className {@link String}
+     * @return boolean
+     */
+    static boolean isInternal(String className) {
+        return className.startsWith(PACKAGE) && className.indexOf('.', PACKAGE.length()) < 0;
+    }
+
+    /**
+     * Call sites of one class, keyed by method name, method descriptor and bytecode index. Copy on write,
+     * since new call sites are rare compared to lookups.
+     */
+    private static final class SiteTable {
+        private volatile Entry[] entries = new Entry[0];
+
+        CallSite get(StackWalker.StackFrame frame) {
+            int bci = frame.getByteCodeIndex();
+            String method = frame.getMethodName();
+            String descriptor = frame.getDescriptor();
+            for (Entry entry : entries) {
+                if (entry.bci == bci && entry.method.equals(method) && entry.descriptor.equals(descriptor)) return entry.site;
+            }
+            CallSite site = new CallSite(frame.getClassName(), frame.getFileName(), frame.getLineNumber());
+            synchronized (this) {
+                Entry[] current = entries;
+                for (Entry entry : current) {
+                    if (entry.bci == bci && entry.method.equals(method) && entry.descriptor.equals(descriptor)) return entry.site;
+                }
+                if (current.length < MAX_CACHED_PER_CLASS) {
+                    Entry[] grown = new Entry[current.length + 1];
+                    System.arraycopy(current, 0, grown, 0, current.length);
+                    grown[current.length] = new Entry(method, descriptor, bci, site);
+                    entries = grown;
+                }
+            }
+            return site;
+        }
+    }
+
+    private static final class Entry {
+        final String method;
+        final String descriptor;
+        final int bci;
+        final CallSite site;
+
+        Entry(String method, String descriptor, int bci, CallSite site) {
+            this.method = method;
+            this.descriptor = descriptor;
+            this.bci = bci;
+            this.site = site;
+        }
+    }
+}
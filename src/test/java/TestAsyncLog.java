@@ -0,0 +1,62 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+import org.nishat.util.log.*;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestAsyncLog {
+
+    @Test
+    public void testAsyncWritesEveryEvent() throws InterruptedException {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.INDEX + ": " + LogProperties.VALUE;
+
+        GlobalLogConfig.ASYNC = true;
+        try {
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                String tag = "thread" + t;
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 1000; i++) Log.i(tag, String.valueOf(i), config);
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) thread.join();
+            Log.shutdown();
+        } finally {
+            GlobalLogConfig.ASYNC = false;
+        }
+
+        String[] lines = sw.toString().split("\n");
+        assertEquals(4000, lines.length);
+        int[] next = new int[4];
+        for (String line : lines) {
+            int t = line.charAt("thread".length()) - '0';
+            assertEquals("thread" + t + ": " + next[t]++, line);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nishat.util.log.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestBinaryLog {
+    private static final String FORMAT = "[" + LogProperties.LEVEL + "] [" + LogProperties.TIMESTAMP + "] ["
+            + LogProperties.PACKAGE + "] [" + LogProperties.INDEX + ": " + LogProperties.VALUE + "] from ("
+            + LogProperties.FILE + ":" + LogProperties.LINE + ")";
+
+    @Test
+    public void testDecodesToSameText() throws IOException {
+        StringWriter text = new StringWriter();
+        LocalLogConfig textConfig = new LocalLogConfig();
+        textConfig.WRITER = text;
+        textConfig.LOG_LEVEL = LogLevel.INFO;
+        textConfig.LOG_COLOR = false;
+        textConfig.FORMAT = FORMAT;
+        textConfig.TIMESTAMP_FORMAT = TimestampFormat.EPOCH_MICROS;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        LocalLogConfig binaryConfig = new LocalLogConfig();
+        binaryConfig.LOG_LEVEL = LogLevel.INFO;
+        binaryConfig.BINARY_WRITER = new BinaryLogWriter(bytes);
+        binaryConfig.FLUSH_POLICY = FlushPolicy.everyEvents(1000);
+
+        LogClock clock = GlobalLogConfig.CLOCK;
+        try {
+            logEvents(textConfig);
+            logEvents(binaryConfig);
+        } finally {
+            GlobalLogConfig.CLOCK = clock;
+        }
+        binaryConfig.BINARY_WRITER.flush();
+
+        StringWriter decoded = new StringWriter();
+        long events = BinaryLogDecoder.decode(new ByteArrayInputStream(bytes.toByteArray()), decoded, textConfig);
+        assertEquals(7, events);
+        assertEquals(text.toString(), decoded.toString());
+        assertTrue(decoded.toString().contains("[WARNING] [1680090798006000] [TestBinaryLog] [network: caf\u00e9 \u20ac \ud83d\ude00 #2]"), decoded.toString());
+        assertTrue(bytes.size() < text.toString().length() / 2, bytes.size() + " bytes");
+    }
+
+    @Test
+    public void testCommandLineFormat(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("app.nlog");
+        LocalLogConfig config = new LocalLogConfig();
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.BINARY_WRITER = new BinaryLogWriter(Files.newOutputStream(file));
+        Log.w("network", "connected", config);
+        config.BINARY_WRITER.close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(out, true, "UTF-8"));
+        try {
+            BinaryLogDecoder.main(new String[]{file.toString(), "[LEVEL] [INDEX: VALUE] LEVELS"});
+        } finally {
+            System.setOut(stdout);
+        }
+        assertEquals("[WARNING] [network: connected] LEVELS\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static void logEvents(LocalLogConfig config) {
+        long[] now = {1680090798000000L};
+        GlobalLogConfig.CLOCK = () -> now[0] += 1000;
+        for (int i = 0; i < 3; i++) {
+            Log.i("network", "connected to server #" + i, config);
+            Log.w("network", "caf\u00e9 \u20ac \ud83d\ude00 #" + i, config);
+        }
+        Log.raw("raw", "a raw event", config);
+    }
+}
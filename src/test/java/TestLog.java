@@ -21,8 +21,24 @@
 import org.junit.jupiter.api.Test;
 import org.nishat.util.log.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestLog {
 
@@ -136,4 +152,582 @@ public class TestLog {
         Log.e("test", "error3", config);
         fw1.close();
     }
+
+    @Test
+    public void testSpecialCharacters() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.INDEX + ": " + LogProperties.VALUE + " (" + LogProperties.INDEX + ")";
+        Log.i("test", "costs $5 in C:\\temp", config);
+        assertEquals("test: costs $5 in C:\\temp (test)\n", sw.toString());
+    }
+
+    @Test
+    public void testColorFallback() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.LEVEL.toString();
+        boolean color = GlobalLogConfig.LOG_COLOR;
+        GlobalLogConfig.LOG_COLOR = true;
+        Log.e("test", "global color", config);
+        config.LOG_COLOR = false;
+        Log.e("test", "local plain", config);
+        GlobalLogConfig.LOG_COLOR = color;
+        assertEquals("\u001B[31mERROR\u001B[0m\nERROR\n", sw.toString());
+    }
+
+    @Test
+    public void testStyle() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.LOG_COLOR = true;
+        config.FORMAT = LogProperties.LEVEL.toString();
+        config.LOG_STYLE = new LogStyle() {
+            @Override
+            protected String prefix(LogLevel level) {
+                return "<" + level.getValue() + ">";
+            }
+
+            @Override
+            protected String suffix(LogLevel level) {
+                return "</>";
+            }
+        };
+        Log.w("test", "custom", config);
+        Log.raw("tag", "raw", config);
+        config.LOG_STYLE = LogStyle.PLAIN;
+        Log.w("test", "plain", config);
+        assertEquals("<5>WARNING</>\n<1>tag</>\nWARNING\n", sw.toString());
+    }
+
+    @Test
+    public void testIsEnabled() {
+        LocalLogConfig config = new LocalLogConfig();
+        config.LOG_LEVEL = LogLevel.CRITICAL;
+        assertFalse(Log.isEnabled(LogLevel.WARNING, config));
+        assertTrue(Log.isEnabled(LogLevel.CRITICAL, config));
+        assertTrue(Log.isEnabled(LogLevel.FATAL, config));
+        config.LOG_LEVEL = null;
+        assertEquals(Log.isEnabled(LogLevel.DEBUG), Log.isEnabled(LogLevel.DEBUG, config));
+    }
+
+    @Test
+    public void testLevelOverrides() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.WARNING;
+        config.FORMAT = LogProperties.INDEX + ": " + LogProperties.VALUE;
+        try {
+            LogLevelOverrides.setTagLevel("db", LogLevel.DEBUG);
+            LogLevelOverrides.setTagLevel("db.noisy", LogLevel.FATAL);
+            Log.d("db", "visible", config);
+            Log.d("db.pool", "visible", config);
+            Log.e("db.noisy", "invisible", config);
+            Log.d("net", "invisible", config);
+            assertTrue(Log.isEnabled("db.pool", LogLevel.DEBUG, config));
+            assertFalse(Log.isEnabled("net", LogLevel.DEBUG, config));
+
+            LogLevelOverrides.setPackageLevel("TestLog", LogLevel.TRACE);
+            Log.t("net", "visible", config);
+            Log.i("net", "invisible", config);
+            Log.t("db", "invisible", config);
+            LogLevelOverrides.setPackageLevel("TestLog", LogLevel.CRITICAL);
+            Log.w("net", "invisible", config);
+            Log.c("net", "visible", config);
+        } finally {
+            LogLevelOverrides.clear();
+        }
+        Log.d("db", "invisible", config);
+        assertEquals("db: visible\ndb.pool: visible\nnet: visible\nnet: visible\n", sw.toString());
+    }
+
+    @Test
+    public void testRateLimit() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.LEVEL + " " + LogProperties.INDEX + ": " + LogProperties.VALUE;
+        config.LOG_COLOR = false;
+        config.RATE_LIMIT = RateLimit.perSecond(0.001, 3);
+        int[] built = new int[1];
+        for (int i = 0; i < 10; i++) Log.w("flood", () -> "event " + built[0]++, config);
+        Log.e("flood", "error", config);
+        Log.i("other", "not limited", config);
+        Log.shutdown();
+        assertEquals(3, built[0]);
+        assertEquals("WARNING flood: event 0\nWARNING flood: event 1\nWARNING flood: event 2\n"
+                + "INFO other: not limited\n"
+                + "ERROR flood: suppressed 8 events for tag flood in the last 1s\n", sw.toString());
+
+        sw.getBuffer().setLength(0);
+        config.FORMAT = LogProperties.INDEX + ": " + LogProperties.VALUE + " (" + LogProperties.LINE + ")";
+        config.RATE_LIMIT = RateLimit.perSecond(0.001, 1);
+        Log.w("lines", "first", config);
+        Log.w("lines", "second", config);
+        Log.w("lines", "third", config);
+        assertTrue(sw.toString().startsWith("lines: first ("), sw.toString());
+        assertEquals(1, sw.toString().split("\n").length, sw.toString());
+        Log.shutdown();
+
+        sw.getBuffer().setLength(0);
+        config.FORMAT = LogProperties.VALUE.toString();
+        LocalLogConfig other = new LocalLogConfig();
+        other.WRITER = sw;
+        other.LOG_LEVEL = LogLevel.INFO;
+        other.FORMAT = config.FORMAT;
+        other.RATE_LIMIT = RateLimit.perSecond(0.001, 1);
+        for (int i = 0; i < 3; i++) {
+            Log.w("shared", "first config " + i, config);
+            Log.w("shared", "second config " + i, other);
+        }
+        assertEquals("first config 0\nsecond config 0\n", sw.toString());
+        Log.shutdown();
+    }
+
+    @Test
+    public void testSinks() {
+        StringWriter console = new StringWriter();
+        StringWriter copy = new StringWriter();
+        StringWriter json = new StringWriter();
+        StringWriter async = new StringWriter();
+        LogSink consoleSink = sink(console, LogLevel.WARNING);
+        consoleSink.FORMAT = LogProperties.LEVEL + " " + LogProperties.INDEX + ": " + LogProperties.VALUE;
+        LogSink copySink = sink(copy, LogLevel.DEBUG);
+        copySink.FORMAT = consoleSink.FORMAT;
+        LogSink jsonSink = sink(json, LogLevel.TRACE);
+        jsonSink.ENCODER = LogEncoder.JSON;
+        jsonSink.TIMESTAMP_FORMAT = TimestampFormat.EPOCH_MILLIS;
+        LogSink asyncSink = sink(async, LogLevel.DEBUG);
+        asyncSink.FORMAT = LogProperties.VALUE.toString();
+        asyncSink.ASYNC = true;
+        List<LogSink> sinks = GlobalLogConfig.SINKS;
+        LogClock clock = GlobalLogConfig.CLOCK;
+        GlobalLogConfig.SINKS = Arrays.asList(consoleSink, copySink, jsonSink, asyncSink);
+        GlobalLogConfig.CLOCK = () -> 1680090798123456L;
+        try {
+            assertTrue(Log.isEnabled("test", LogLevel.TRACE));
+            assertFalse(Log.isEnabled("test", LogLevel.INFO));
+            Log.i("test", "info");
+            Log.t("test", "trace");
+            Log.d("test", "{} debug", 1);
+            Log.e("test", "error");
+            Log.shutdown();
+        } finally {
+            GlobalLogConfig.SINKS = sinks;
+            GlobalLogConfig.CLOCK = clock;
+        }
+        String thread = Thread.currentThread().getName();
+        assertEquals("ERROR test: error\n", console.toString());
+        assertEquals("DEBUG test: 1 debug\nERROR test: error\n", copy.toString());
+        assertEquals("{\"timestamp\":\"1680090798123\",\"level\":\"TRACE\",\"thread\":\"" + thread + "\",\"package\":\"TestLog\",\"tag\":\"test\",\"value\":\"trace\",\"file\":\"TestLog.java\"}\n"
+                + "{\"timestamp\":\"1680090798123\",\"level\":\"DEBUG\",\"thread\":\"" + thread + "\",\"package\":\"TestLog\",\"tag\":\"test\",\"value\":\"1 debug\",\"file\":\"TestLog.java\"}\n"
+                + "{\"timestamp\":\"1680090798123\",\"level\":\"ERROR\",\"thread\":\"" + thread + "\",\"package\":\"TestLog\",\"tag\":\"test\",\"value\":\"error\",\"file\":\"TestLog.java\"}\n",
+                json.toString().replaceAll(",\"line\":\\d+", ""));
+        assertEquals("1 debug\nerror\n", async.toString());
+    }
+
+    private static LogSink sink(StringWriter writer, LogLevel level) {
+        LogSink sink = new LogSink();
+        sink.WRITER = writer;
+        sink.LOG_LEVEL = level;
+        sink.LOG_COLOR = false;
+        return sink;
+    }
+
+    @Test
+    public void testMetrics() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.WARNING;
+        config.FORMAT = LogProperties.VALUE.toString();
+        LocalLogConfig failing = new LocalLogConfig();
+        failing.WRITER = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        LogMetrics.reset();
+        GlobalLogConfig.METRICS = true;
+        try {
+            Log.d("test", "debug", config);
+            Log.w("test", "warning", config);
+            Log.e("test", () -> "error", config);
+            Log.raw("test", "raw", config);
+            Log.f("test", "fatal", failing);
+        } finally {
+            GlobalLogConfig.METRICS = false;
+        }
+        assertEquals("warning\nerror\nraw\n", sw.toString());
+        assertEquals(1, LogMetrics.filtered());
+        assertEquals(0, LogMetrics.events(LogLevel.DEBUG));
+        assertEquals(1, LogMetrics.events(LogLevel.WARNING));
+        assertEquals(1, LogMetrics.events(null));
+        assertEquals(4, LogMetrics.events());
+        assertEquals(1, LogMetrics.errors());
+        assertEquals(sw.toString().length(), LogMetrics.charsWritten());
+        assertEquals(3, LogMetrics.flushes());
+        LogMetrics.Latency latency = LogMetrics.latency();
+        assertEquals(4, latency.count());
+        assertTrue(latency.percentile(50) <= latency.percentile(99.9));
+        assertTrue(latency.percentile(100) == latency.max() && latency.max() > 0);
+        assertTrue(LogMetrics.registerMBean());
+        LogMetrics.unregisterMBean();
+    }
+
+    @Test
+    public void testThrowable() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_COLOR = false;
+        config.FORMAT = LogProperties.LEVEL + " " + LogProperties.INDEX + ": " + LogProperties.VALUE;
+        config.STACK_TRACE_FORMAT = StackTraceFormat.FULL.withMaxFrames(2).folding("org.framework.");
+        StackTraceElement main = new StackTraceElement("app.Main", "main", "Main.java", 5);
+        IllegalStateException cause = new IllegalStateException("closed");
+        cause.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("app.Db", "query", "Db.java", 42),
+                new StackTraceElement("app.Service", "load", "Service.java", 12), main});
+        RuntimeException e = new RuntimeException("load failed", cause);
+        e.setStackTrace(new StackTraceElement[]{
+                new StackTraceElement("app.Service", "load", "Service.java", 14),
+                new StackTraceElement("org.framework.Invoker", "invoke", "Invoker.java", 80),
+                new StackTraceElement("org.framework.Invoker", "call", null, -1),
+                new StackTraceElement("app.Controller", "get", "Controller.java", 7),
+                new StackTraceElement("app.Router", "route", "Router.java", 3), main});
+        Log.e("test", "request failed", e, config);
+        assertEquals("ERROR test: request failed\n"
+                + "java.lang.RuntimeException: load failed\n"
+                + "\tat app.Service.load(Service.java:14)\n"
+                + "\t... 2 frames of org.framework.\n"
+                + "\tat app.Controller.get(Controller.java:7)\n"
+                + "\t... 2 frames truncated\n"
+                + "Caused by: java.lang.IllegalStateException: closed\n"
+                + "\tat app.Db.query(Db.java:42)\n"
+                + "\tat app.Service.load(Service.java:12)\n"
+                + "\t... 1 more\n", sw.toString());
+    }
+
+    @Test
+    public void testDuplicateTraces() {
+        StringWriter sw = new StringWriter();
+        Writer writer = GlobalLogConfig.WRITER;
+        String format = GlobalLogConfig.FORMAT;
+        boolean color = GlobalLogConfig.LOG_COLOR;
+        DebugManager debug = DebugManager.getInstance();
+        boolean active = debug.isActive();
+        GlobalLogConfig.WRITER = sw;
+        GlobalLogConfig.FORMAT = LogProperties.INDEX + ": " + LogProperties.VALUE;
+        GlobalLogConfig.LOG_COLOR = false;
+        debug.active();
+        try {
+            for (int i = 0; i < 3; i++) {
+                try {
+                    throw new IllegalStateException("closed " + i);
+                } catch (IllegalStateException e) {
+                    debug.print(e);
+                }
+            }
+            Log.shutdown();
+        } finally {
+            GlobalLogConfig.WRITER = writer;
+            GlobalLogConfig.FORMAT = format;
+            GlobalLogConfig.LOG_COLOR = color;
+            if (!active) debug.deActive();
+        }
+        String printed = sw.toString();
+        assertTrue(printed.matches("DebugManager: Debug Catch \\w{8}\njava.lang.IllegalStateException: closed 0\n\tat TestLog.testDuplicateTraces[^\n]*\n(?s).*"), printed);
+        String id = printed.substring("DebugManager: Debug Catch ".length(), "DebugManager: Debug Catch ".length() + 8);
+        assertTrue(printed.endsWith("DebugManager: Debug Catch " + id + " #2: java.lang.IllegalStateException: closed 1\n"
+                + "DebugManager: Debug Catch " + id + " #3: java.lang.IllegalStateException: closed 2\n"
+                + "DebugManager: Debug Catch " + id + " repeated 2 times in the last 1s\n"), printed);
+        assertThrows(IllegalArgumentException.class, () -> debug.setDuplicateWindow(DebugManager.MAX_DUPLICATE_WINDOW + 1));
+    }
+
+    @Test
+    public void testFailingWriter() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream err = System.err;
+        Writer writer = GlobalLogConfig.WRITER;
+        DebugManager debug = DebugManager.getInstance();
+        boolean active = debug.isActive();
+        int[] writes = new int[1];
+        GlobalLogConfig.WRITER = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) throws IOException {
+                writes[0]++;
+                debug.print(new IOException("reported by the writer"));
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        System.setErr(new PrintStream(bytes, true));
+        debug.active();
+        try {
+            debug.print(new IllegalArgumentException("bad input"));
+        } finally {
+            System.setErr(err);
+            GlobalLogConfig.WRITER = writer;
+            if (!active) debug.deActive();
+        }
+        String printed = bytes.toString();
+        assertEquals(1, writes[0]);
+        assertTrue(printed.startsWith("DebugManager: Debug Catch "), printed);
+        assertTrue(printed.contains("java.io.IOException: reported by the writer"), printed);
+        assertTrue(printed.contains("java.io.IOException: disk full"), printed);
+
+        bytes.reset();
+        writes[0] = 0;
+        System.setErr(new PrintStream(bytes, true));
+        GlobalLogConfig.WRITER = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) throws IOException {
+                writes[0]++;
+                throw new IOException("still full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        debug.active();
+        try {
+            for (int i = 0; i < 3; i++) Log.raw("test", "lost");
+            Log.shutdown();
+        } finally {
+            System.setErr(err);
+            GlobalLogConfig.WRITER = writer;
+            if (!active) debug.deActive();
+        }
+        printed = bytes.toString();
+        assertEquals(3, writes[0]);
+        assertTrue(printed.matches("(?s).*DebugManager: Debug Catch \\w+ repeated 2 times.*"), printed);
+    }
+
+    @Test
+    public void testFlightRecorder() throws InterruptedException {
+        StringWriter sw = new StringWriter();
+        Writer writer = GlobalLogConfig.WRITER;
+        String format = GlobalLogConfig.FORMAT;
+        LogLevel level = GlobalLogConfig.LOG_LEVEL;
+        boolean color = GlobalLogConfig.LOG_COLOR;
+        GlobalLogConfig.WRITER = sw;
+        GlobalLogConfig.FORMAT = LogProperties.LEVEL + " " + LogProperties.INDEX + ": " + LogProperties.VALUE;
+        GlobalLogConfig.LOG_LEVEL = LogLevel.WARNING;
+        GlobalLogConfig.LOG_COLOR = false;
+        GlobalLogConfig.FLIGHT_RECORDER = FlightRecorder.perThread(2);
+        try {
+            int[] built = new int[1];
+            Log.d("test", "dropped from the ring");
+            Log.t("test", "trace {}", 1);
+            Log.i("test", () -> "info " + built[0]++);
+            assertEquals(0, built[0]);
+            Log.w("test", "warning");
+            Log.e("test", "error");
+            Log.e("test", "nothing recorded since");
+            assertEquals("WARNING test: warning\nTRACE test: trace 1\nINFO test: info 0\nERROR test: error\n"
+                    + "ERROR test: nothing recorded since\n", sw.toString());
+
+            sw.getBuffer().setLength(0);
+            GlobalLogConfig.FLIGHT_RECORDER = FlightRecorder.allThreads(4).dumpingAt(LogLevel.CRITICAL);
+            Thread other = new Thread(() -> Log.d("other", "from another thread"));
+            Log.d("test", "before");
+            other.start();
+            other.join();
+            Log.c("test", "critical");
+            assertEquals("DEBUG test: before\nDEBUG other: from another thread\nCRITICAL test: critical\n", sw.toString());
+
+            sw.getBuffer().setLength(0);
+            GlobalLogConfig.FORMAT = format;
+            GlobalLogConfig.FLIGHT_RECORDER = FlightRecorder.perThread(2);
+            Log.d("test", "located");
+            Log.e("test", "error");
+            String[] lines = sw.toString().split("\n");
+            assertTrue(lines[0].matches("\\[DEBUG] \\[.*] \\[TestLog] \\[test: located] from \\(TestLog\\.java:\\d+\\)"), lines[0]);
+        } finally {
+            GlobalLogConfig.FLIGHT_RECORDER = null;
+            GlobalLogConfig.WRITER = writer;
+            GlobalLogConfig.FORMAT = format;
+            GlobalLogConfig.LOG_LEVEL = level;
+            GlobalLogConfig.LOG_COLOR = color;
+        }
+    }
+
+    @Test
+    public void testSampling() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.INDEX + " " + LogProperties.VALUE + " " + LogProperties.SAMPLE_RATE;
+        config.SAMPLER = LogSampler.everyNth(LogLevel.INFO, "http", 3)
+                .withProbability(LogLevel.TRACE, "db", 0)
+                .withProbability(null, "db.pool", 1);
+        for (int i = 0; i < 6; i++) Log.i("http.client", "request " + i, config);
+        String[] requests = sw.toString().split("\n");
+        assertEquals(2, requests.length, sw.toString());
+        assertTrue(requests[0].matches("http\\.client request [0-2] 3"), requests[0]);
+        assertTrue(requests[1].matches("http\\.client request [3-5] 3"), requests[1]);
+
+        sw.getBuffer().setLength(0);
+        Log.t("db", "dropped", config);
+        Log.t("db.pool", "kept", config);
+        Log.d("db", "no rule", config);
+        assertEquals("db.pool kept \ndb no rule \n", sw.toString());
+
+        sw.getBuffer().setLength(0);
+        config.ENCODER = LogEncoder.JSON;
+        config.SAMPLER = LogSampler.everyNth(null, null, 2);
+        for (int i = 0; i < 2; i++) Log.i("http", "sampled", config);
+        assertTrue(sw.toString().contains("\"sample_rate\":2"), sw.toString());
+    }
+
+    @Test
+    public void testSupplier() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.WARNING;
+        config.FORMAT = LogProperties.VALUE.toString();
+        Log.d("test", () -> {
+            throw new AssertionError("disabled supplier was called");
+        }, config);
+        Log.e("test", () -> "built " + 1, config);
+        assertEquals("built 1\n", sw.toString());
+    }
+
+    @Test
+    public void testParameterized() {
+        Writer writer = GlobalLogConfig.WRITER;
+        String format = GlobalLogConfig.FORMAT;
+        LogLevel level = GlobalLogConfig.LOG_LEVEL;
+        StringWriter sw = new StringWriter();
+        GlobalLogConfig.WRITER = sw;
+        GlobalLogConfig.FORMAT = LogProperties.VALUE.toString();
+        GlobalLogConfig.LOG_LEVEL = LogLevel.INFO;
+        try {
+            Log.i("test", "user {} took {} ms", "nishat", 42);
+            Log.w("test", "{} of {}", 1);
+            Log.e("test", "{}-{}-{} \\{}", 'a', 2L, new Object[]{"x"});
+        } finally {
+            GlobalLogConfig.WRITER = writer;
+            GlobalLogConfig.FORMAT = format;
+            GlobalLogConfig.LOG_LEVEL = level;
+        }
+        assertEquals("user nishat took 42 ms\n1 of {}\na-2-[x] {}\n", sw.toString());
+    }
+
+    @Test
+    public void testLocation() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.PACKAGE + " " + LogProperties.FILE + ":" + LogProperties.LINE;
+        Log.i("test", "located", config);
+        config.LOCATION_LEVEL = LogLevel.ERROR;
+        Log.i("test", "not located", config);
+        String[] lines = sw.toString().split("\n");
+        assertTrue(lines[0].matches("TestLog TestLog\\.java:\\d+"), lines[0]);
+        assertEquals(" :", lines[1]);
+    }
+
+    @Test
+    public void testOverloadLocations() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.LINE.toString();
+        located(1, config);
+        located("1", config);
+        String[] lines = sw.toString().split("\n");
+        assertEquals(Integer.parseInt(lines[0]) + 4, Integer.parseInt(lines[1]), sw.toString());
+    }
+
+    private static void located(int value, LocalLogConfig config) {
+        Log.i("test", "int", config);
+    }
+
+    private static void located(String value, LocalLogConfig config) {
+        Log.i("test", "string", config);
+    }
+
+    @Test
+    public void testTimestamp() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.TIMESTAMP.toString();
+        LogClock clock = GlobalLogConfig.CLOCK;
+        GlobalLogConfig.CLOCK = () -> 1680090798123456L;
+        try {
+            config.TIMESTAMP_FORMAT = TimestampFormat.EPOCH_MILLIS;
+            Log.i("test", "millis", config);
+            config.TIMESTAMP_FORMAT = TimestampFormat.EPOCH_MICROS;
+            Log.i("test", "micros", config);
+            config.TIMESTAMP_FORMAT = TimestampFormat.of(DateTimeFormatter.ofPattern("HH:mm:ss.SSSSSS").withZone(ZoneOffset.UTC));
+            Log.i("test", "pattern", config);
+            config.TIMESTAMP_FORMAT = null;
+            Log.i("test", "iso", config);
+        } finally {
+            GlobalLogConfig.CLOCK = clock;
+        }
+        String iso = LocalDateTime.ofInstant(Instant.ofEpochMilli(1680090798123L), ZoneId.systemDefault()).toString();
+        assertEquals("1680090798123\n1680090798123456\n11:53:18.123456\n" + iso + "\n", sw.toString());
+    }
+
+    @Test
+    public void testFlushPolicy() throws InterruptedException {
+        int[] flushes = new int[1];
+        StringWriter sw = new StringWriter() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.VALUE.toString();
+        config.FLUSH_POLICY = FlushPolicy.everyEvents(3).immediatelyAt(LogLevel.ERROR);
+        for (int i = 0; i < 7; i++) Log.i("test", "event", config);
+        assertEquals(2, flushes[0]);
+        Log.e("test", "error", config);
+        assertEquals(3, flushes[0]);
+
+        config.FLUSH_POLICY = FlushPolicy.interval(20);
+        Log.i("test", "event", config);
+        for (int i = 0; i < 100 && flushes[0] == 3; i++) Thread.sleep(10);
+        assertEquals(4, flushes[0]);
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+import org.nishat.util.log.*;
+
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLogAllocation {
+    private static final int WARMUP = 200_000;
+    private static final int CALLS = 100_000;
+
+    /**
+     * Writer that only counts chars, so the measurement covers the logging path alone.
+     */
+    private static final class CountingWriter extends Writer {
+        long chars;
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            chars += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void log(LocalLogConfig plain, LocalLogConfig colored) {
+        Log.i("alloc", "steady state", plain);
+        Log.e("alloc", "steady state", colored);
+        Log.d("alloc", "disabled", colored);
+    }
+
+    @Test
+    public void testSteadyStateDoesNotAllocate() {
+        CountingWriter writer = new CountingWriter();
+        LocalLogConfig plain = new LocalLogConfig();
+        plain.WRITER = writer;
+        plain.LOG_LEVEL = LogLevel.INFO;
+        plain.LOG_COLOR = false;
+        plain.FORMAT = "[" + LogProperties.LEVEL + "] [" + LogProperties.TIMESTAMP + "] [" + LogProperties.INDEX + ": " + LogProperties.VALUE + "]";
+        LocalLogConfig colored = new LocalLogConfig();
+        colored.WRITER = writer;
+        colored.LOG_LEVEL = LogLevel.WARNING;
+        colored.LOG_COLOR = true;
+        colored.FORMAT = plain.FORMAT;
+
+        for (int i = 0; i < WARMUP; i++) log(plain, colored);
+        writer.chars = 0;
+        long before = allocatedBytes();
+        for (int i = 0; i < CALLS; i++) log(plain, colored);
+        long allocated = allocatedBytes() - before;
+
+        String expected = "[INFO] [2023-03-29T17:33:18.123] [alloc: steady state]\n"
+                + "[\u001B[31mERROR\u001B[0m] [2023-03-29T17:33:18.123] [alloc: steady state]\n";
+        assertEquals(CALLS * (long) expected.length(), writer.chars);
+        assertTrue(allocated < CALLS, "allocated " + allocated + " bytes in " + CALLS + " iterations");
+    }
+
+    @Test
+    public void testAlternatingFormatsDoNotAllocate() {
+        CountingWriter writer = new CountingWriter();
+        LocalLogConfig[] configs = new LocalLogConfig[3];
+        for (int i = 0; i < configs.length; i++) {
+            configs[i] = new LocalLogConfig();
+            configs[i].WRITER = writer;
+            configs[i].LOG_LEVEL = LogLevel.INFO;
+            configs[i].LOG_COLOR = false;
+        }
+        configs[0].FORMAT = LogProperties.INDEX + ": " + LogProperties.VALUE;
+        configs[1].FORMAT = "[" + LogProperties.INDEX + "] " + LogProperties.VALUE;
+        configs[2].FORMAT = LogProperties.VALUE + " (" + LogProperties.INDEX + ")";
+
+        for (int i = 0; i < WARMUP; i++) Log.i("alloc", "steady state", configs[i % configs.length]);
+        long before = allocatedBytes();
+        for (int i = 0; i < CALLS; i++) Log.i("alloc", "steady state", configs[i % configs.length]);
+        long allocated = allocatedBytes() - before;
+
+        assertTrue(allocated < CALLS, "allocated " + allocated + " bytes in " + CALLS + " iterations");
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+import org.nishat.util.log.*;
+
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLogConcurrency {
+    private static final int EVENTS = 200_000;
+
+    /**
+     * Writer that is not thread-safe: it copies one char at a time, so concurrent calls would tear lines.
+     */
+    private static final class UnsafeWriter extends Writer {
+        final StringBuilder out = new StringBuilder();
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            for (int i = 0; i < len; i++) out.append(buf[off + i]);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testLinesAreNeverTorn() throws InterruptedException {
+        for (int threads : new int[]{1, 8, 32, 128}) {
+            UnsafeWriter writer = new UnsafeWriter();
+            LocalLogConfig config = new LocalLogConfig();
+            config.WRITER = writer;
+            config.LOG_LEVEL = LogLevel.INFO;
+            config.FORMAT = LogProperties.INDEX + "-" + LogProperties.VALUE;
+            int perThread = EVENTS / threads;
+
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                String tag = "t" + t;
+                workers[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) Log.i(tag, Integer.toString(i), config);
+                });
+                workers[t].start();
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread worker : workers) worker.join();
+            long nanos = System.nanoTime() - begin;
+
+            String[] lines = writer.out.toString().split("\n");
+            assertEquals(perThread * threads, lines.length);
+            int[] next = new int[threads];
+            for (String line : lines) {
+                assertTrue(line.matches("t\\d+-\\d+"), "torn line: " + line);
+                int dash = line.indexOf('-');
+                int t = Integer.parseInt(line.substring(1, dash));
+                assertEquals(next[t]++, Integer.parseInt(line.substring(dash + 1)), "out of order: " + line);
+            }
+            System.out.printf("%d threads: %,d events/s%n", threads, (long) (perThread * threads * 1e9 / nanos));
+        }
+    }
+
+    @Test
+    public void testImmediateLinesAreNotQueued() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringBuilder flushed = new StringBuilder();
+        StringBuilder written = new StringBuilder();
+        Writer writer = new Writer() {
+            @Override
+            public void write(char[] buf, int off, int len) {
+                if (written.length() == 0) {
+                    writing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                written.append(buf, off, len);
+            }
+
+            @Override
+            public void flush() {
+                flushed.setLength(0);
+                flushed.append(written);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = writer;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.VALUE.toString();
+        config.FLUSH_POLICY = FlushPolicy.everyEvents(100).immediatelyAt(LogLevel.ERROR);
+
+        Thread slow = new Thread(() -> Log.i("test", "slow", config));
+        slow.start();
+        writing.await();
+        Thread error = new Thread(() -> Log.e("test", "error", config));
+        error.start();
+        error.join(200);
+        assertTrue(error.isAlive(), "error line was queued instead of written");
+        release.countDown();
+        error.join();
+        slow.join();
+        assertEquals("slow\nerror\n", flushed.toString());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+import org.nishat.util.log.*;
+
+import java.io.StringWriter;
+import java.io.Writer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestLogEncoder {
+    private static LocalLogConfig config(StringWriter sw, LogEncoder encoder) {
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = sw;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.LOCATION_LEVEL = LogLevel.FATAL;
+        config.ENCODER = encoder;
+        config.TIMESTAMP_FORMAT = TimestampFormat.EPOCH_MILLIS;
+        return config;
+    }
+
+    @Test
+    public void testJson() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = config(sw, LogEncoder.JSON);
+        LogClock clock = GlobalLogConfig.CLOCK;
+        GlobalLogConfig.CLOCK = () -> 1680090798123456L;
+        String thread = Thread.currentThread().getName();
+        LogContext.put("request", "r\"1");
+        try {
+            Log.e("db", "line\nbreak \"quoted\" \\ \u0001", config);
+            Log.raw("raw", "plain", config);
+        } finally {
+            GlobalLogConfig.CLOCK = clock;
+            LogContext.clear();
+        }
+        assertEquals("{\"timestamp\":\"1680090798123\",\"level\":\"ERROR\",\"thread\":\"" + thread + "\",\"tag\":\"db\","
+                + "\"value\":\"line\\nbreak \\\"quoted\\\" \\\\ \\u0001\",\"request\":\"r\\\"1\"}\n"
+                + "{\"timestamp\":\"1680090798123\",\"thread\":\"" + thread + "\",\"tag\":\"raw\",\"value\":\"plain\",\"request\":\"r\\\"1\"}\n",
+                sw.toString());
+
+        sw.getBuffer().setLength(0);
+        config.LOCATION_LEVEL = LogLevel.INFO;
+        config.TIMESTAMP_FORMAT = null;
+        LogEncoder encoder = GlobalLogConfig.ENCODER;
+        Writer writer = GlobalLogConfig.WRITER;
+        GlobalLogConfig.ENCODER = LogEncoder.JSON;
+        GlobalLogConfig.WRITER = sw;
+        try {
+            Log.i("db", "{} of {}", "1", "a\tb");
+        } finally {
+            GlobalLogConfig.ENCODER = encoder;
+            GlobalLogConfig.WRITER = writer;
+        }
+        String line = sw.toString();
+        assertEquals(true, line.contains("\"package\":\"TestLogEncoder\""), line);
+        assertEquals(true, line.contains("\"value\":\"1 of a\\tb\",\"file\":\"TestLogEncoder.java\",\"line\":"), line);
+
+        sw.getBuffer().setLength(0);
+        config.LOCATION_LEVEL = LogLevel.FATAL;
+        config.STACK_TRACE_FORMAT = StackTraceFormat.FULL.withMaxFrames(1);
+        Exception e = new Exception("bad \"input\"");
+        e.setStackTrace(new StackTraceElement[]{new StackTraceElement("app.Parser", "parse", "Parser.java", 9),
+                new StackTraceElement("app.Main", "main", "Main.java", 5)});
+        Log.w("parser", "rejected", e, config);
+        line = sw.toString();
+        assertEquals(true, line.endsWith(",\"value\":\"rejected\",\"exception\":\"java.lang.Exception: bad \\\"input\\\"\\n"
+                + "\\tat app.Parser.parse(Parser.java:9)\\n\\t... 1 frame truncated\"}\n"), line);
+    }
+
+    @Test
+    public void testLogfmt() {
+        StringWriter sw = new StringWriter();
+        LocalLogConfig config = config(sw, LogEncoder.LOGFMT);
+        LogClock clock = GlobalLogConfig.CLOCK;
+        GlobalLogConfig.CLOCK = () -> 1680090798123456L;
+        String thread = Thread.currentThread().getName();
+        LogContext.put("user id", "42");
+        try {
+            Log.i("http", "done", config);
+            Log.i("http", "took 5 ms, status=\"ok\"", config);
+            Log.i("http", "", config);
+        } finally {
+            GlobalLogConfig.CLOCK = clock;
+            LogContext.clear();
+        }
+        String prefix = "timestamp=1680090798123 level=INFO thread=" + thread + " tag=http value=";
+        assertEquals(prefix + "done user_id=42\n"
+                + prefix + "\"took 5 ms, status=\\\"ok\\\"\" user_id=42\n"
+                + prefix + "\"\" user_id=42\n", sw.toString());
+    }
+}
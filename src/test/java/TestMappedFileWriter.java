@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 Al Masum Nishat (http://nishat.org)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and
+ * associated documentation files (the "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT
+ * OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ */
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.nishat.util.log.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestMappedFileWriter {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testWritesUtf8AcrossRegions() throws IOException {
+        Path file = dir.resolve("test.log");
+        MappedFileWriter writer = new MappedFileWriter(file.toString(), 16, 0, 0, 0);
+        LocalLogConfig config = new LocalLogConfig();
+        config.WRITER = writer;
+        config.LOG_LEVEL = LogLevel.INFO;
+        config.FORMAT = LogProperties.INDEX + ": " + LogProperties.VALUE;
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            String value = "café € " + i + " 😀";
+            Log.i("test", value, config);
+            expected.append("test: ").append(value).append('\n');
+        }
+        writer.close();
+        assertEquals(expected.toString(), new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+
+        writer = new MappedFileWriter(file.toString());
+        writer.write("appended\n");
+        writer.close();
+        assertEquals(expected + "appended\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testTrimsZeroedTailOfUnclosedWriter() throws IOException {
+        Path file = dir.resolve("crash.log");
+        MappedFileWriter crashed = new MappedFileWriter(file.toString(), 16, 0, 0, 0);
+        String written = "0123456789abcdefghijklmnopqrs\n";
+        crashed.write(written);
+        assertEquals(48, Files.size(file));
+
+        MappedFileWriter writer = new MappedFileWriter(file.toString(), 16, 0, 0, 0);
+        writer.write("recovered\n");
+        writer.close();
+        assertEquals(written + "recovered\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRollsBySizeAndKeepsRetention() throws IOException {
+        Path file = dir.resolve("roll.log");
+        MappedFileWriter writer = new MappedFileWriter(file.toString(), 64, 100, 0, 2);
+        for (int i = 0; i < 100; i++) writer.write("line " + i + "\n");
+        writer.close();
+
+        assertTrue(Files.exists(file));
+        assertTrue(Files.exists(dir.resolve("roll.log.1")));
+        assertTrue(Files.exists(dir.resolve("roll.log.2")));
+        assertFalse(Files.exists(dir.resolve("roll.log.3")));
+        String last = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertTrue(last.endsWith("line 99\n"), last);
+        assertTrue(Files.size(dir.resolve("roll.log.1")) < 100 + "line 99\n".length());
+    }
+
+    @Test
+    public void testFailedRollClosesWriter() throws IOException {
+        Path file = dir.resolve("fail.log");
+        Files.createDirectories(dir.resolve("fail.log.1"));
+        Files.write(dir.resolve("fail.log.1").resolve("blocker"), new byte[1]);
+        MappedFileWriter writer = new MappedFileWriter(file.toString(), 64, 10, 0, 1);
+        writer.write("first line\n");
+        assertThrows(IOException.class, () -> writer.write("rolls\n"));
+        IOException e = assertThrows(IOException.class, () -> writer.write("after\n"));
+        assertTrue(e.getMessage().contains("rolling"), e.getMessage());
+        assertThrows(IOException.class, writer::force);
+        writer.close();
+    }
+}